@@ -0,0 +1,166 @@
+package com.afs.parkinglot.loadgen;
+
+import com.afs.parkinglot.Car;
+import com.afs.parkinglot.LatencyHistogram;
+import com.afs.parkinglot.ParkingLot;
+import com.afs.parkinglot.ParkingTicket;
+import com.afs.parkinglot.SmartParkingBoy;
+import com.afs.parkinglot.StandardParkingBoy;
+import com.afs.parkinglot.SuperParkingBoy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 出入口负载模拟器：每个入口、出口闸口各是一个虚拟线程，按配置的到达间隔和停留时长驱动停车小弟
+// 结束时输出停车、取车的吞吐量和 p50/p99/p999 延迟，用来在上线前找出竞争点和扩展瓶颈
+public class GateSimulator {
+    private final SimulationConfig config;
+    private final StandardParkingBoy parkingBoy;
+    // 每个出口闸口一个离场队列：DelayQueue 只有一把锁，所有出口共用一个队列时测到的是这把锁而不是停车场
+    private final List<DelayQueue<DepartingCar>> departures;
+    private final LatencyHistogram parkLatency = new LatencyHistogram();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    GateSimulator(SimulationConfig config) {
+        this.config = config;
+        this.parkingBoy = createParkingBoy(config);
+        this.departures = new ArrayList<>(config.exitGates);
+        for (int i = 0; i < config.exitGates; i++) {
+            departures.add(new DelayQueue<>());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SimulationConfig config = SimulationConfig.parse(args);
+        System.out.println("Simulating " + config);
+        new GateSimulator(config).run();
+    }
+
+    void run() throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.seconds);
+        try (ExecutorService gates = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.entryGates; i++) {
+                gates.submit(() -> runEntryGate(deadline));
+            }
+            for (DelayQueue<DepartingCar> queue : departures) {
+                gates.submit(() -> runExitGate(queue, deadline));
+            }
+        }
+        report(System.nanoTime() - start);
+    }
+
+    private Void runEntryGate(long deadline) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            sleepMillis(sample(config.arrival, config.meanArrivalMillis, random));
+            long begin = System.nanoTime();
+            ParkingTicket ticket = parkingBoy.tryPark(new Car());
+            parkLatency.record(System.nanoTime() - begin);
+            if (ticket == null) {
+                rejected.increment();
+                continue;
+            }
+            if (departures.isEmpty()) {
+                continue;
+            }
+            // 随机分给一个出口，各出口的队列互不竞争
+            long dwellNanos = (long) (sample(config.dwell, config.meanDwellMillis, random) * 1_000_000);
+            departures.get(random.nextInt(departures.size()))
+                    .put(new DepartingCar(ticket, System.nanoTime() + dwellNanos));
+        }
+        return null;
+    }
+
+    private Void runExitGate(DelayQueue<DepartingCar> queue, long deadline) throws InterruptedException {
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            DepartingCar departing = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (departing == null) {
+                return null;
+            }
+            long begin = System.nanoTime();
+            parkingBoy.tryFetch(departing.ticket);
+            fetchLatency.record(System.nanoTime() - begin);
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("park:  %,d ops  %,.0f ops/s  rejected %,d%n",
+                parkLatency.count(), parkLatency.count() / seconds, rejected.sum());
+        System.out.printf("fetch: %,d ops  %,.0f ops/s%n", fetchLatency.count(), fetchLatency.count() / seconds);
+        printLatency("park", parkLatency);
+        printLatency("fetch", fetchLatency);
+    }
+
+    private static void printLatency(String name, LatencyHistogram histogram) {
+        System.out.printf("%-6s latency ns  p50=%,d  p99=%,d  p999=%,d%n", name,
+                histogram.percentile(0.50), histogram.percentile(0.99), histogram.percentile(0.999));
+    }
+
+    private static double sample(SimulationConfig.Distribution distribution, double mean, ThreadLocalRandom random) {
+        switch (distribution) {
+            case POISSON:
+            case EXPONENTIAL:
+                return -mean * Math.log(1 - random.nextDouble());
+            case UNIFORM:
+                return random.nextDouble(2 * mean);
+            default:
+                return mean;
+        }
+    }
+
+    private static void sleepMillis(double millis) throws InterruptedException {
+        long nanos = (long) (millis * 1_000_000);
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private static StandardParkingBoy createParkingBoy(SimulationConfig config) {
+        List<ParkingLot> parkingLots = new ArrayList<>(config.lotCount);
+        for (int i = 0; i < config.lotCount; i++) {
+            parkingLots.add(new ParkingLot(config.capacity));
+        }
+        switch (config.boyType) {
+            case "SMART":
+                return new SmartParkingBoy(parkingLots);
+            case "SUPER":
+                return new SuperParkingBoy(parkingLots);
+            default:
+                return new StandardParkingBoy(parkingLots);
+        }
+    }
+
+    private static final class DepartingCar implements Delayed {
+        private final ParkingTicket ticket;
+        private final long departAtNanos;
+
+        private DepartingCar(ParkingTicket ticket, long departAtNanos) {
+            this.ticket = ticket;
+            this.departAtNanos = departAtNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(departAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(departAtNanos, ((DepartingCar) other).departAtNanos);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.afs.parkinglot.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 模拟参数，命令行以 key=value 形式传入，未给出的取默认值
+class SimulationConfig {
+    final String boyType;
+    final int lotCount;
+    final int capacity;
+    final int entryGates;
+    final int exitGates;
+    final int seconds;
+    // 每个入口闸口的平均到达间隔；POISSON 为指数分布，UNIFORM 为 [0, 2 * 均值) 均匀分布
+    final double meanArrivalMillis;
+    final Distribution arrival;
+    // 车辆平均停留时长；EXPONENTIAL 为指数分布，FIXED 为固定值
+    final double meanDwellMillis;
+    final Distribution dwell;
+
+    enum Distribution {
+        POISSON, UNIFORM, EXPONENTIAL, FIXED
+    }
+
+    private SimulationConfig(Map<String, String> options) {
+        this.boyType = options.getOrDefault("boy", "STANDARD").toUpperCase();
+        this.lotCount = Integer.parseInt(options.getOrDefault("lots", "100"));
+        this.capacity = Integer.parseInt(options.getOrDefault("capacity", "200"));
+        this.entryGates = Integer.parseInt(options.getOrDefault("entryGates", "1000"));
+        this.exitGates = Integer.parseInt(options.getOrDefault("exitGates", "1000"));
+        this.seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        this.meanArrivalMillis = Double.parseDouble(options.getOrDefault("arrivalMillis", "5"));
+        this.arrival = Distribution.valueOf(options.getOrDefault("arrival", "POISSON").toUpperCase());
+        this.meanDwellMillis = Double.parseDouble(options.getOrDefault("dwellMillis", "200"));
+        this.dwell = Distribution.valueOf(options.getOrDefault("dwell", "EXPONENTIAL").toUpperCase());
+    }
+
+    static SimulationConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new SimulationConfig(options);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("boy=%s lots=%d capacity=%d entryGates=%d exitGates=%d seconds=%d "
+                        + "arrivalMillis=%.2f arrival=%s dwellMillis=%.2f dwell=%s",
+                boyType, lotCount, capacity, entryGates, exitGates, seconds,
+                meanArrivalMillis, arrival, meanDwellMillis, dwell);
+    }
+}
@@ -0,0 +1,66 @@
+package com.afs.parkinglot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 多个出入口共用一个停车小弟时的吞吐：1 个和 8 个闸口线程分别停取车，
+// 总吞吐随线程数上升说明各闸口没有在选场策略上排队
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GateContentionBenchmark {
+
+    @Param({"SMART", "SUPER"})
+    private String boyType;
+
+    @Param({"100"})
+    private int lotCount;
+
+    @Param({"1000"})
+    private int capacity;
+
+    private StandardParkingBoy parkingBoy;
+
+    @Setup
+    public void setUp() {
+        List<ParkingLot> parkingLots = new ArrayList<>(lotCount);
+        for (int i = 0; i < lotCount; i++) {
+            parkingLots.add(new ParkingLot(capacity));
+        }
+        parkingBoy = "SUPER".equals(boyType) ? new SuperParkingBoy(parkingLots) : new SmartParkingBoy(parkingLots);
+    }
+
+    @State(Scope.Thread)
+    public static class Gate {
+        private final Car car = new Car();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Car oneGate(Gate gate) {
+        return parkingBoy.fetch(parkingBoy.park(gate.car));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Car eightGates(Gate gate) {
+        return parkingBoy.fetch(parkingBoy.park(gate.car));
+    }
+}
@@ -0,0 +1,77 @@
+package com.afs.parkinglot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingBoyBenchmark {
+
+    @Param({"STANDARD", "SMART", "SUPER"})
+    private String boyType;
+
+    @Param({"1", "100", "1000"})
+    private int lotCount;
+
+    @Param({"100"})
+    private int capacity;
+
+    // 预先占用的车位比例；STANDARD 会一直停在第一个未满的停车场，比例越高扫描越长
+    // 各停车场合计给每个并发线程留出一个空位，-t 再大也不会测到停满抛异常的路径
+    @Param({"0.0", "0.5", "0.9"})
+    private double fillRatio;
+
+    private StandardParkingBoy parkingBoy;
+    private Car car;
+
+    @Setup
+    public void setUp(BenchmarkParams params) {
+        List<ParkingLot> parkingLots = new ArrayList<>(lotCount);
+        int reservedPerLot = (params.getThreads() + lotCount - 1) / lotCount;
+        int lotCapacity = Math.max(capacity, reservedPerLot);
+        int prefilled = Math.min((int) (capacity * fillRatio), lotCapacity - reservedPerLot);
+        for (int i = 0; i < lotCount; i++) {
+            ParkingLot parkingLot = new ParkingLot(lotCapacity);
+            for (int j = 0; j < prefilled; j++) {
+                parkingLot.park(new Car());
+            }
+            parkingLots.add(parkingLot);
+        }
+        parkingBoy = createParkingBoy(parkingLots);
+        car = new Car();
+    }
+
+    @Benchmark
+    public Car parkThenFetch() {
+        return parkingBoy.fetch(parkingBoy.park(car));
+    }
+
+    private StandardParkingBoy createParkingBoy(List<ParkingLot> parkingLots) {
+        switch (boyType) {
+            case "SMART":
+                return new SmartParkingBoy(parkingLots);
+            case "SUPER":
+                return new SuperParkingBoy(parkingLots);
+            default:
+                return new StandardParkingBoy(parkingLots);
+        }
+    }
+}
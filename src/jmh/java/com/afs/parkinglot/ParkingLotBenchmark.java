@@ -0,0 +1,78 @@
+package com.afs.parkinglot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotBenchmark {
+
+    @Param({"100", "10000"})
+    private int capacity;
+
+    // 预先占用的车位比例；按线程数给每个并发线程留出一个空位，-t 再大也不会测到停满抛异常的路径
+    @Param({"0.0", "0.5", "0.9"})
+    private double fillRatio;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    private SlotStorage slotStorage;
+
+    private ParkingLot parkingLot;
+    private ParkingLot fullParkingLot;
+    private Car car;
+
+    @Setup
+    public void setUp(BenchmarkParams params) {
+        int threads = params.getThreads();
+        int lotCapacity = Math.max(capacity, threads);
+        parkingLot = new ParkingLot(lotCapacity, SlotAllocationPolicy.NEXT_FREE, slotStorage);
+        int prefilled = Math.min((int) (capacity * fillRatio), lotCapacity - threads);
+        for (int i = 0; i < prefilled; i++) {
+            parkingLot.park(new Car());
+        }
+        fullParkingLot = new ParkingLot(1);
+        fullParkingLot.park(new Car());
+        car = new Car();
+    }
+
+    @Benchmark
+    public Car parkThenFetch() {
+        return parkingLot.fetch(parkingLot.park(car));
+    }
+
+    @Benchmark
+    public ParkingTicket tryParkWhenFull() {
+        return fullParkingLot.tryPark(car);
+    }
+
+    @Benchmark
+    public ParkingException parkWhenFull() {
+        try {
+            fullParkingLot.park(car);
+            return null;
+        } catch (ParkingException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public int isFullThenAvailableCount() {
+        return parkingLot.isFull() ? 0 : parkingLot.getAvailableCount();
+    }
+}
@@ -0,0 +1,67 @@
+package com.afs.parkinglot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+// 回环地址上的线路协议吞吐：每次调用流水线发出 PIPELINE 个停车和 PIPELINE 个取车请求
+// 服务端只有一个 selector 线程，-PjmhThreads 控制客户端连接数
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireProtocolBenchmark {
+    private static final int PIPELINE = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        private ParkingWireServer server;
+
+        @Setup
+        public void setUp() throws IOException {
+            server = ParkingWireServer.open(new StandardParkingBoy(new ParkingLot(1 << 20)),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private ParkingWireClient client;
+
+        @Setup
+        public void setUp(Server server) throws IOException {
+            client = ParkingWireClient.connect(server.server.getLocalAddress());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * PIPELINE)
+    public int pipelinedParkThenFetch(Client client) throws IOException {
+        return client.client.fetchPipelined(client.client.parkPipelined(PIPELINE));
+    }
+}
@@ -0,0 +1,111 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 停车场里同一类车位的连续区段：有自己的占用位图和已停车数，各类车位的分配、计数互不干扰
+// 车位数用 CAS 预占，预占成功后一定能在位图里认领到空车位
+final class BayGroup {
+    private final BayType type;
+    private final int offset;
+    private final int capacity;
+    private final SlotBitmap occupiedSlots;
+    private final AtomicInteger count = new AtomicInteger();
+    // 已停车数里属于预留的部分，保存计数时扣除：预留不跨重启
+    private final AtomicInteger heldCount = new AtomicInteger();
+
+    BayGroup(BayType type, int offset, int capacity) {
+        this.type = type;
+        this.offset = offset;
+        this.capacity = capacity;
+        this.occupiedSlots = new SlotBitmap(capacity);
+    }
+
+    BayType getType() {
+        return type;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getAvailableCount() {
+        return capacity - count.get();
+    }
+
+    int getHeldCount() {
+        return heldCount.get();
+    }
+
+    void addHold() {
+        heldCount.incrementAndGet();
+    }
+
+    void removeHold() {
+        heldCount.decrementAndGet();
+    }
+
+    boolean contains(int slot) {
+        return slot >= offset && slot - offset < capacity;
+    }
+
+    // 一次 CAS 预占 min(requested, 剩余空位) 个车位，返回预占到的数量
+    int reserve(int requested) {
+        int current;
+        int granted;
+        do {
+            current = count.get();
+            granted = Math.min(requested, capacity - current);
+            if (granted <= 0) {
+                return 0;
+            }
+        } while (!count.compareAndSet(current, current + granted));
+        return granted;
+    }
+
+    // 从保存的计数或加载结果设置已停车数，只在停车场开始停取车之前调用
+    void setCount(int occupied) {
+        count.set(occupied);
+    }
+
+    void unreserve(int released) {
+        count.addAndGet(-released);
+    }
+
+    // 调用前必须已预占车位，因此一定能认领到空车位；返回停车场内的车位号
+    int claimSlot(SlotAllocationPolicy policy) {
+        while (true) {
+            int slot = occupiedSlots.allocate(policy);
+            if (slot >= 0) {
+                return offset + slot;
+            }
+            // 已预占车位就一定有空位，扫描期间位图被并发修改才可能错过，重扫即可
+            Thread.yield();
+        }
+    }
+
+    // 恢复时直接占用指定车位并计数，车位已被占用时返回 false
+    boolean restore(int slot) {
+        if (!occupy(slot)) {
+            return false;
+        }
+        count.incrementAndGet();
+        return true;
+    }
+
+    // 只在位图里占用车位，不计数；车位已被占用时返回 false
+    boolean occupy(int slot) {
+        return occupiedSlots.occupy(slot - offset);
+    }
+
+    void free(int slot) {
+        occupiedSlots.free(slot - offset);
+    }
+
+    boolean isOccupied(int slot) {
+        return occupiedSlots.isOccupied(slot - offset);
+    }
+}
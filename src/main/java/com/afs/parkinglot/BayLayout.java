@@ -0,0 +1,53 @@
+package com.afs.parkinglot;
+
+import java.util.Arrays;
+
+// 停车场各类车位的数量。车位号按 BayType 的顺序分段连续编排，同类车位编号相邻
+// 例如 new BayLayout().with(BayType.COMPACT, 10).with(BayType.STANDARD, 40)
+public final class BayLayout {
+    private final int[] counts;
+
+    public BayLayout() {
+        this(new int[BayType.COUNT]);
+    }
+
+    private BayLayout(int[] counts) {
+        this.counts = counts;
+    }
+
+    // 全部是标准车位，与只给出容量的停车场一致
+    static BayLayout standard(int capacity) {
+        return new BayLayout().with(BayType.STANDARD, capacity);
+    }
+
+    public BayLayout with(BayType type, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Bay count out of range: " + count);
+        }
+        int[] updated = Arrays.copyOf(counts, counts.length);
+        updated[type.ordinal()] = count;
+        return new BayLayout(updated);
+    }
+
+    public int getCount(BayType type) {
+        return counts[type.ordinal()];
+    }
+
+    public int getTotal() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof BayLayout && Arrays.equals(counts, ((BayLayout) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+}
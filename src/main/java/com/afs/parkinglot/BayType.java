@@ -0,0 +1,36 @@
+package com.afs.parkinglot;
+
+// 车位类型，也是车辆需要的车位类型；车辆优先停本类车位，停满时按顺序退到允许的更大车位
+// 普通车不占用充电车位
+public enum BayType {
+    COMPACT,
+    STANDARD,
+    OVERSIZE,
+    EV_CHARGING;
+
+    static final int COUNT = values().length;
+
+    static {
+        COMPACT.fallbacks = new BayType[]{COMPACT, STANDARD, OVERSIZE};
+        STANDARD.fallbacks = new BayType[]{STANDARD, OVERSIZE};
+        OVERSIZE.fallbacks = new BayType[]{OVERSIZE};
+        EV_CHARGING.fallbacks = new BayType[]{EV_CHARGING, STANDARD, OVERSIZE};
+    }
+
+    private BayType[] fallbacks;
+
+    // 该类车辆可以停放的车位类型，按优先顺序；返回内部数组，调用方不得修改
+    BayType[] fallbacks() {
+        return fallbacks;
+    }
+
+    // 该类车辆能否停进 bayType 类车位
+    boolean accepts(BayType bayType) {
+        for (BayType type : fallbacks) {
+            if (type == bayType) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,163 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// 流式计费：取车线程只把停车场编号和停留时长写进定长环形缓冲区（一次 CAS、不分配），
+// 计费线程成批取出，先按分段规则算出整批费用，再累加到各停车场的营收和停留时长汇总
+// 缓冲区满时取车线程短暂挂起等待，不丢弃记录；关闭后不再接收记录
+public class BillingPipeline implements ParkingLotListener, Closeable {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // claimed 的最高位表示已关闭：认领和关闭在同一个变量上 CAS，关闭之后不会再有记录被认领
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final BillingTariff tariff;
+    private final int mask;
+    private final int[] lotIds;
+    private final long[] dwellNanos;
+    // 每个槽位写好后发布 序号 + 1，计费线程据此判断槽位是否可读
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile long billed;
+    private final Map<Integer, LotBilling> billingByLot = new ConcurrentHashMap<>();
+    private final List<ParkingLot> parkingLots = new CopyOnWriteArrayList<>();
+    private final int[] batchLotIds = new int[BATCH_SIZE];
+    private final long[] batchDwellNanos = new long[BATCH_SIZE];
+    private final long[] batchFees = new long[BATCH_SIZE];
+    private final Thread biller;
+
+    public BillingPipeline(BillingTariff tariff) {
+        this(tariff, DEFAULT_CAPACITY);
+    }
+
+    public BillingPipeline(BillingTariff tariff, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.tariff = tariff;
+        this.mask = capacity - 1;
+        this.lotIds = new int[capacity];
+        this.dwellNanos = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.biller = new Thread(this::runBiller, "parking-billing");
+        biller.setDaemon(true);
+        biller.start();
+    }
+
+    // 开始为该停车场计费；之前已经完成的停车不会补计
+    public void attach(ParkingLot parkingLot) {
+        if (parkingLots.contains(parkingLot)) {
+            return;
+        }
+        parkingLots.add(parkingLot);
+        billingByLot.computeIfAbsent(parkingLot.getId(), LotBilling::new);
+        parkingLot.addListener(this);
+    }
+
+    public LotBilling getBilling(ParkingLot parkingLot) {
+        LotBilling billing = billingByLot.get(parkingLot.getId());
+        return billing == null ? new LotBilling(parkingLot.getId()) : billing;
+    }
+
+    // 等待目前已提交的记录全部计费完毕；计费线程已退出（关闭完成）时立即返回
+    public void awaitBilled() {
+        long target = claimed.get() & ~CLOSED;
+        while (billed < target && biller.isAlive()) {
+            LockSupport.unpark(biller);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void onStayCompleted(ParkingLot parkingLot, long ticketId, long parkedAtNanos, long fetchedAtNanos) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        while (sequence - consumed >= lotIds.length) {
+            LockSupport.unpark(biller);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        int index = (int) sequence & mask;
+        lotIds[index] = parkingLot.getId();
+        dwellNanos[index] = fetchedAtNanos - parkedAtNanos;
+        published.set(index, sequence + 1);
+    }
+
+    // 停止接收新的记录，已提交的记录计费完毕后返回
+    @Override
+    public void close() {
+        for (ParkingLot parkingLot : parkingLots) {
+            parkingLot.removeListener(this);
+        }
+        long current;
+        do {
+            current = claimed.get();
+        } while (current >= 0 && !claimed.compareAndSet(current, current | CLOSED));
+        LockSupport.unpark(biller);
+        boolean interrupted = false;
+        while (biller.isAlive()) {
+            try {
+                biller.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runBiller() {
+        while (true) {
+            long next = consumed;
+            int count = 0;
+            while (count < BATCH_SIZE && published.get((int) (next + count) & mask) == next + count + 1) {
+                int index = (int) (next + count) & mask;
+                batchLotIds[count] = lotIds[index];
+                batchDwellNanos[count] = dwellNanos[index];
+                count++;
+            }
+            if (count == 0) {
+                // 关闭之后认领数不再变化，已认领的记录都计完才退出
+                long current = claimed.get();
+                if (current < 0 && (current & ~CLOSED) == next) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            // 槽位数据已拷出，先归还给取车线程，再计费
+            consumed = next + count;
+            bill(count);
+            billed = next + count;
+        }
+    }
+
+    private void bill(int count) {
+        for (int i = 0; i < count; i++) {
+            batchFees[i] = tariff.feeCents(batchDwellNanos[i]);
+        }
+        LotBilling billing = null;
+        for (int i = 0; i < count; i++) {
+            if (billing == null || billing.getLotId() != batchLotIds[i]) {
+                billing = billingByLot.computeIfAbsent(batchLotIds[i], LotBilling::new);
+            }
+            billing.add(batchDwellNanos[i], batchFees[i]);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.afs.parkinglot;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// 分段计费规则：每一段覆盖到某个停留时长为止，段内按每开始一小时计费，单位为分
+// 例如 前 15 分钟免费、3 小时内每小时 500、之后每小时 300：
+// new BillingTariff().upTo(Duration.ofMinutes(15), 0).upTo(Duration.ofHours(3), 500).beyond(300)
+public final class BillingTariff {
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final long[] tierEndNanos;
+    private final long[] centsPerHour;
+
+    public BillingTariff() {
+        this(new long[0], new long[0]);
+    }
+
+    private BillingTariff(long[] tierEndNanos, long[] centsPerHour) {
+        this.tierEndNanos = tierEndNanos;
+        this.centsPerHour = centsPerHour;
+    }
+
+    // 追加一段：从上一段结束到 end 为止，每开始一小时收 cents 分
+    public BillingTariff upTo(Duration end, long cents) {
+        long endNanos = end.toNanos();
+        if (tierEndNanos.length > 0 && endNanos <= tierEndNanos[tierEndNanos.length - 1]) {
+            throw new IllegalArgumentException("Tiers must be in increasing order: " + end);
+        }
+        return append(endNanos, cents);
+    }
+
+    // 最后一段：超出前面各段的时长，每开始一小时收 cents 分
+    public BillingTariff beyond(long cents) {
+        return append(Long.MAX_VALUE, cents);
+    }
+
+    // 不分配内存，可在批量计费的循环里直接调用；超出所有段的时长不收费
+    public long feeCents(long dwellNanos) {
+        long fee = 0;
+        long tierStart = 0;
+        for (int i = 0; i < tierEndNanos.length && dwellNanos > tierStart; i++) {
+            long inTier = Math.min(dwellNanos, tierEndNanos[i]) - tierStart;
+            long startedHours = (inTier + HOUR_NANOS - 1) / HOUR_NANOS;
+            fee += startedHours * centsPerHour[i];
+            tierStart = tierEndNanos[i];
+        }
+        return fee;
+    }
+
+    private BillingTariff append(long endNanos, long cents) {
+        if (tierEndNanos.length > 0 && tierEndNanos[tierEndNanos.length - 1] == Long.MAX_VALUE) {
+            throw new IllegalStateException("No tier can follow beyond()");
+        }
+        long[] ends = Arrays.copyOf(tierEndNanos, tierEndNanos.length + 1);
+        long[] rates = Arrays.copyOf(centsPerHour, centsPerHour.length + 1);
+        ends[tierEndNanos.length] = endNanos;
+        rates[centsPerHour.length] = cents;
+        return new BillingTariff(ends, rates);
+    }
+}
@@ -1,5 +1,56 @@
 package com.afs.parkinglot;
 
+import java.util.Objects;
+
+// 按车牌和车位类型比较：堆外存储取车时按记录重建 Car，取回的车与停入的车相等但不是同一个对象
 public class Car {
+    // 车牌号，未登记车牌的车为 null，不参与重复停车检查
+    private final String plate;
+    // 需要的车位类型，默认标准车位
+    private final BayType bayType;
+
+    public Car() {
+        this(null, BayType.STANDARD);
+    }
+
+    public Car(String plate) {
+        this(plate, BayType.STANDARD);
+    }
+
+    public Car(BayType bayType) {
+        this(null, bayType);
+    }
+
+    public Car(String plate, BayType bayType) {
+        if (bayType == null) {
+            throw new IllegalArgumentException("Bay type required");
+        }
+        this.plate = plate;
+        this.bayType = bayType;
+    }
+
+    public String getPlate() {
+        return plate;
+    }
+
+    public BayType getBayType() {
+        return bayType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Car)) {
+            return false;
+        }
+        Car that = (Car) o;
+        return Objects.equals(plate, that.plate) && bayType == that.bayType;
+    }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(plate, bayType);
+    }
 }
@@ -0,0 +1,20 @@
+package com.afs.parkinglot;
+
+// 按车牌查到的停车位置；只给出停车场和车位，不交出可以取车的小票
+public final class CarLocation {
+    private final ParkingLot parkingLot;
+    private final int slotNumber;
+
+    CarLocation(ParkingLot parkingLot, int slotNumber) {
+        this.parkingLot = parkingLot;
+        this.slotNumber = slotNumber;
+    }
+
+    public ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    public int getSlotNumber() {
+        return slotNumber;
+    }
+}
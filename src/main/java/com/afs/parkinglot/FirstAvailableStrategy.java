@@ -0,0 +1,166 @@
+package com.afs.parkinglot;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 按登记顺序选第一个有空位的停车场
+// 缓存第一个未满停车场的位置：位置之前的停车场都已停满，只有它们腾出车位时缓存才失效
+// 按车位类型选场时每类车辆各有一份缓存；所有停车场的车位该类车辆都能停时直接沿用整体缓存
+class FirstAvailableStrategy implements ParkingStrategy, ParkingLotListener {
+    private static final int STALE = -1;
+    private static final ParkingLot[] NO_LOTS = new ParkingLot[0];
+
+    private volatile ParkingLot[] parkingLots = NO_LOTS;
+    private final Map<ParkingLot, Integer> positions = new ConcurrentHashMap<>();
+    // 下标 0 是整体缓存，下标 ordinal + 1 是各类车位的缓存
+    // 高 32 位是版本号，低 32 位是缓存的位置；位置等于停车场数量表示全部停满
+    // 每次失效都推进版本号，正在重算的线程发现版本变了就不会写回过期结果
+    private final AtomicLongArray caches = newCaches();
+    // 按位记录哪些车位类型在某个停车场里有不能停的车位，这些类型需要单独缓存
+    private volatile int mixedTypes;
+    private volatile ParkingMetrics metrics;
+
+    @Override
+    public void register(ParkingLot parkingLot) {
+        synchronized (this) {
+            if (positions.containsKey(parkingLot)) {
+                return;
+            }
+            ParkingLot[] updated = Arrays.copyOf(parkingLots, parkingLots.length + 1);
+            updated[parkingLots.length] = parkingLot;
+            positions.put(parkingLot, parkingLots.length);
+            parkingLots = updated;
+            int mixed = mixedTypes;
+            for (BayType type : BayType.values()) {
+                if (parkingLot.getCapacity(type) != parkingLot.getCapacity()) {
+                    mixed |= 1 << type.ordinal();
+                }
+            }
+            mixedTypes = mixed;
+        }
+        invalidate(Integer.MIN_VALUE);
+        parkingLot.addListener(this);
+    }
+
+    // 之后的停车场位置前移一位，缓存全部失效
+    @Override
+    public void unregister(ParkingLot parkingLot) {
+        parkingLot.removeListener(this);
+        synchronized (this) {
+            Integer position = positions.remove(parkingLot);
+            if (position == null) {
+                return;
+            }
+            ParkingLot[] updated = new ParkingLot[parkingLots.length - 1];
+            System.arraycopy(parkingLots, 0, updated, 0, position);
+            System.arraycopy(parkingLots, position + 1, updated, position, updated.length - position);
+            for (int i = position; i < updated.length; i++) {
+                positions.put(updated[i], i);
+            }
+            parkingLots = updated;
+        }
+        invalidate(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public void bindMetrics(ParkingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ParkingLot select() {
+        return select(0, null);
+    }
+
+    @Override
+    public ParkingLot select(BayType bayType) {
+        if ((mixedTypes & (1 << bayType.ordinal())) == 0) {
+            return select(0, null);
+        }
+        return select(bayType.ordinal() + 1, bayType);
+    }
+
+    private ParkingLot select(int index, BayType bayType) {
+        ParkingLot[] lots = parkingLots;
+        long current = caches.get(index);
+        int position = positionOf(current);
+        if (position != STALE) {
+            if (position >= lots.length) {
+                recordLotsScanned(0);
+                return null;
+            }
+            if (hasRoom(lots[position], bayType)) {
+                recordLotsScanned(1);
+                return lots[position];
+            }
+        }
+
+        int found = lots.length;
+        for (int i = 0; i < lots.length; i++) {
+            if (hasRoom(lots[i], bayType)) {
+                found = i;
+                break;
+            }
+        }
+        caches.compareAndSet(index, current, pack(versionOf(current), found));
+        recordLotsScanned(found < lots.length ? found + 1 : lots.length);
+        return found < lots.length ? lots[found] : null;
+    }
+
+    @Override
+    public void onAvailableCountChanged(ParkingLot parkingLot) {
+        Integer position = positions.get(parkingLot);
+        if (position != null) {
+            invalidate(position);
+        }
+    }
+
+    // 缓存位置之后（含）的停车场变化不影响结果：缓存的停车场停满时 select() 会自己发现
+    private void invalidate(int changedPosition) {
+        for (int index = 0; index < caches.length(); index++) {
+            while (true) {
+                long current = caches.get(index);
+                int position = positionOf(current);
+                if (position != STALE && changedPosition >= position) {
+                    break;
+                }
+                if (caches.compareAndSet(index, current, pack(versionOf(current) + 1, STALE))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean hasRoom(ParkingLot parkingLot, BayType bayType) {
+        return bayType == null ? !parkingLot.isFull() : parkingLot.getAvailableCount(bayType) > 0;
+    }
+
+    private static AtomicLongArray newCaches() {
+        AtomicLongArray caches = new AtomicLongArray(BayType.COUNT + 1);
+        for (int i = 0; i < caches.length(); i++) {
+            caches.set(i, pack(0, STALE));
+        }
+        return caches;
+    }
+
+    private void recordLotsScanned(int count) {
+        ParkingMetrics current = metrics;
+        if (current != null) {
+            current.recordLotsScanned(count);
+        }
+    }
+
+    private static long pack(int version, int position) {
+        return ((long) version << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static int versionOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int positionOf(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,99 @@
+package com.afs.parkinglot;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 订阅停车场事件、增量维护的车队汇总：全部停车场的空位总数、当前停满的停车场
+// 读取汇总是 O(1)，不需要轮询每个停车场的 getAvailableCount()/isFull()
+public class FleetOccupancy implements ParkingLotListener {
+    private final Set<ParkingLot> trackedLots = ConcurrentHashMap.newKeySet();
+    private final Set<ParkingLot> fullLots = ConcurrentHashMap.newKeySet();
+    private final AtomicLong availableCount = new AtomicLong();
+    private final AtomicLong capacity = new AtomicLong();
+
+    // 以停车场当前空位为基线开始跟踪，之后靠事件累加；应在停车场开始接车之前调用，
+    // 否则订阅与读取基线之间正在进行的停取车可能被重复计入
+    public void track(ParkingLot parkingLot) {
+        if (!trackedLots.add(parkingLot)) {
+            return;
+        }
+        parkingLot.addListener(this);
+        capacity.addAndGet(parkingLot.getCapacity());
+        availableCount.addAndGet(parkingLot.getAvailableCount());
+        refreshFull(parkingLot);
+    }
+
+    public void untrack(ParkingLot parkingLot) {
+        if (!trackedLots.remove(parkingLot)) {
+            return;
+        }
+        parkingLot.removeListener(this);
+        capacity.addAndGet(-parkingLot.getCapacity());
+        availableCount.addAndGet(-parkingLot.getAvailableCount());
+        fullLots.remove(parkingLot);
+    }
+
+    public long getAvailableCount() {
+        return availableCount.get();
+    }
+
+    public long getCapacity() {
+        return capacity.get();
+    }
+
+    public Set<ParkingLot> getTrackedParkingLots() {
+        return Collections.unmodifiableSet(trackedLots);
+    }
+
+    public Set<ParkingLot> getFullParkingLots() {
+        return Collections.unmodifiableSet(fullLots);
+    }
+
+    @Override
+    public void onParked(ParkingLot parkingLot, long ticketId) {
+        availableCount.decrementAndGet();
+    }
+
+    @Override
+    public void onFetched(ParkingLot parkingLot, long ticketId) {
+        availableCount.incrementAndGet();
+    }
+
+    @Override
+    public void onHeld(ParkingLot parkingLot) {
+        availableCount.decrementAndGet();
+    }
+
+    @Override
+    public void onHoldReleased(ParkingLot parkingLot) {
+        availableCount.incrementAndGet();
+    }
+
+    // 懒加载的停车场按保存的计数开始跟踪，加载出实际车位后按差额修正
+    @Override
+    public void onRecounted(ParkingLot parkingLot, int countBefore, int countAfter) {
+        availableCount.addAndGet(countBefore - countAfter);
+        refreshFull(parkingLot);
+    }
+
+    @Override
+    public void onFull(ParkingLot parkingLot) {
+        refreshFull(parkingLot);
+    }
+
+    @Override
+    public void onNotFull(ParkingLot parkingLot) {
+        refreshFull(parkingLot);
+    }
+
+    // 停满/不再停满事件可能在不同线程上交错到达，以停车场的实时状态为准
+    private void refreshFull(ParkingLot parkingLot) {
+        if (parkingLot.isFull()) {
+            fullLots.add(parkingLot);
+        } else {
+            fullLots.remove(parkingLot);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 整个车队的停车状态放在一个内存映射文件里：文件头、停车场表，以及每个停车场一段定长的车位记录
+// 停取车直接写映射内存，不写日志也不序列化；重启时只读停车场表就能挂接全部停车场，
+// 车位记录由操作系统按需换入，某个停车场第一次停取车时才扫描它自己的车位
+// 进程崩溃时已写入映射内存的数据由操作系统落盘；机器掉电时只保证最近一次 sync() 之前的数据
+public class FleetStateFile implements Closeable {
+    // 文件头（64 字节）：魔数 int | 版本 int | 停车场数 int | 正常关闭标记 int | 下一段车位记录的起始位置 long
+    private static final int MAGIC = 0x504B4653;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int LOT_COUNT_OFFSET = 8;
+    private static final int CLEAN_OFFSET = 12;
+    private static final int NEXT_REGION_OFFSET = 16;
+    // 停车场表项（64 字节）：编号 int | 分配策略 int | 各类车位数 int×4 | 各类车位已停车数 int×4 | 车位记录起始位置 long
+    // 已停车数不含预留，预留不跨重启
+    private static final int MAX_LOTS = 4096;
+    private static final int ENTRY_BYTES = 64;
+    private static final int ENTRY_POLICY_OFFSET = 4;
+    private static final int ENTRY_BAYS_OFFSET = 8;
+    private static final int ENTRY_OCCUPIED_OFFSET = 24;
+    private static final int ENTRY_REGION_OFFSET = 40;
+    private static final int TABLE_BYTES = HEADER_BYTES + MAX_LOTS * ENTRY_BYTES;
+    // 每条车位记录 48 字节，车牌最多 16 个字符；各段按页对齐
+    private static final int RECORD_BYTES = 48;
+    private static final long PAGE_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final List<ParkingLot> parkingLots = new CopyOnWriteArrayList<>();
+    private final List<MappedByteBuffer> regions = new CopyOnWriteArrayList<>();
+    // 记录里的停入时刻 = System.nanoTime() + clockOffsetNanos，按墙上时钟落盘，重启后停留时长仍然连续
+    private final long clockOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    private boolean closed;
+
+    private FleetStateFile(FileChannel channel, MappedByteBuffer table) {
+        this.channel = channel;
+        this.table = table;
+    }
+
+    // 打开（必要时创建）状态文件并挂接其中的全部停车场，停车场沿用原编号，应在本进程创建其他停车场之前调用
+    // 上次正常关闭时各停车场的空位数直接取自保存的计数，车位记录延后加载；上次没有正常关闭时计数不可信，打开时逐个扫描
+    public static FleetStateFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            FleetStateFile fleetState = new FleetStateFile(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, TABLE_BYTES));
+            fleetState.init(created);
+            return fleetState;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<ParkingLot> getParkingLots() {
+        return Collections.unmodifiableList(new ArrayList<>(parkingLots));
+    }
+
+    // 在状态文件里新建一个停车场，其停车记录从此保存在文件中
+    public synchronized ParkingLot addParkingLot(BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy)
+            throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Fleet state file closed");
+        }
+        int lotCount = table.getInt(LOT_COUNT_OFFSET);
+        if (lotCount >= MAX_LOTS) {
+            throw new IllegalStateException("Fleet state file full: " + MAX_LOTS + " parking lots");
+        }
+        int id = ParkingLot.nextId();
+        long regionOffset = table.getLong(NEXT_REGION_OFFSET);
+        long regionBytes = (long) bayLayout.getTotal() * RECORD_BYTES;
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, regionOffset, regionBytes);
+
+        int entry = HEADER_BYTES + lotCount * ENTRY_BYTES;
+        table.putInt(entry, id);
+        table.putInt(entry + ENTRY_POLICY_OFFSET, slotAllocationPolicy.ordinal());
+        for (BayType type : BayType.values()) {
+            table.putInt(entry + ENTRY_BAYS_OFFSET + type.ordinal() * Integer.BYTES, bayLayout.getCount(type));
+            table.putInt(entry + ENTRY_OCCUPIED_OFFSET + type.ordinal() * Integer.BYTES, 0);
+        }
+        table.putLong(entry + ENTRY_REGION_OFFSET, regionOffset);
+        table.putLong(NEXT_REGION_OFFSET, align(regionOffset + regionBytes));
+        // 表项写完整之后才计入停车场数
+        table.putInt(LOT_COUNT_OFFSET, lotCount + 1);
+
+        // 新映射的区段全是 0，即全部车位空闲，不需要加载
+        ParkingLot parkingLot = new ParkingLot(id, bayLayout, slotAllocationPolicy, SlotStorage.OFF_HEAP,
+                new OffHeapSlotStore(region, RECORD_BYTES, clockOffsetNanos), null);
+        parkingLots.add(parkingLot);
+        regions.add(region);
+        return parkingLot;
+    }
+
+    // 保存各停车场的计数，并把映射内存刷到磁盘
+    public synchronized void sync() {
+        saveCounts();
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+        table.force();
+    }
+
+    // 关闭后文件里的停车场仍可使用，但之后的变化不保证保存，重启后可能看到旧的计数，应先停止停取车再关闭
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        sync();
+        table.putInt(CLEAN_OFFSET, 1);
+        table.force();
+        closed = true;
+        channel.close();
+    }
+
+    private void init(boolean created) throws IOException {
+        if (created) {
+            table.putInt(0, MAGIC);
+            table.putInt(4, VERSION);
+            table.putInt(LOT_COUNT_OFFSET, 0);
+            table.putLong(NEXT_REGION_OFFSET, align(TABLE_BYTES));
+        } else if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION) {
+            throw new IOException("Not a fleet state file");
+        }
+        boolean clean = created || table.getInt(CLEAN_OFFSET) == 1;
+        // 运行期间标记为未正常关闭，进程崩溃后重启时据此重新统计
+        table.putInt(CLEAN_OFFSET, 0);
+        table.force();
+
+        int lotCount = table.getInt(LOT_COUNT_OFFSET);
+        for (int i = 0; i < lotCount; i++) {
+            int entry = HEADER_BYTES + i * ENTRY_BYTES;
+            BayLayout bayLayout = new BayLayout();
+            int[] occupiedCounts = new int[BayType.COUNT];
+            for (BayType type : BayType.values()) {
+                bayLayout = bayLayout.with(type, table.getInt(entry + ENTRY_BAYS_OFFSET + type.ordinal() * Integer.BYTES));
+                occupiedCounts[type.ordinal()] = table.getInt(entry + ENTRY_OCCUPIED_OFFSET + type.ordinal() * Integer.BYTES);
+            }
+            long regionOffset = table.getLong(entry + ENTRY_REGION_OFFSET);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, regionOffset,
+                    (long) bayLayout.getTotal() * RECORD_BYTES);
+            ParkingLot parkingLot = new ParkingLot(table.getInt(entry), bayLayout,
+                    SlotAllocationPolicy.values()[table.getInt(entry + ENTRY_POLICY_OFFSET)], SlotStorage.OFF_HEAP,
+                    new OffHeapSlotStore(region, RECORD_BYTES, clockOffsetNanos), occupiedCounts);
+            if (!clean) {
+                parkingLot.ensureLoaded();
+            }
+            parkingLots.add(parkingLot);
+            regions.add(region);
+        }
+    }
+
+    private void saveCounts() {
+        int lotCount = table.getInt(LOT_COUNT_OFFSET);
+        for (int i = 0; i < lotCount; i++) {
+            int entry = HEADER_BYTES + i * ENTRY_BYTES;
+            ParkingLot parkingLot = parkingLots.get(i);
+            for (BayType type : BayType.values()) {
+                table.putInt(entry + ENTRY_OCCUPIED_OFFSET + type.ordinal() * Integer.BYTES,
+                        parkingLot.getOccupiedCount(type));
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES;
+    }
+}
@@ -0,0 +1,20 @@
+package com.afs.parkinglot;
+
+// 按预测空位选场：比较各停车场在 horizon 之后的预测空位，避免把车送进即将停满的停车场
+// 有空位的停车场评分至少为 1，预测会停满但眼下还有空位时仍可作为最后的选择
+class ForecastParkingStrategy extends RankedParkingStrategy {
+    private final OccupancyForecaster forecaster;
+
+    ForecastParkingStrategy(OccupancyForecaster forecaster, long horizonNanos) {
+        super((parkingLot, availableCount, capacity) -> availableCount == 0
+                ? 0 : 1 + forecaster.predictAvailable(parkingLot, availableCount, horizonNanos));
+        this.forecaster = forecaster;
+        forecaster.addListener(this);
+    }
+
+    @Override
+    public void register(ParkingLot parkingLot) {
+        forecaster.track(parkingLot);
+        super.register(parkingLot);
+    }
+}
@@ -0,0 +1,35 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 按车位号存放停着的车，小票编号直接定位车位，不为每辆车分配 Map 节点
+final class HeapSlotStore implements SlotStore {
+    private final AtomicReferenceArray<Car> parkedCars;
+    private final long[] parkedAtNanos;
+
+    HeapSlotStore(int capacity) {
+        this.parkedCars = new AtomicReferenceArray<>(capacity);
+        this.parkedAtNanos = new long[capacity];
+    }
+
+    @Override
+    public void store(int slot, Car car, long parkedAtNanos) {
+        parkedCars.set(slot, car);
+        this.parkedAtNanos[slot] = parkedAtNanos;
+    }
+
+    @Override
+    public Car load(int slot) {
+        return parkedCars.get(slot);
+    }
+
+    @Override
+    public long parkedAt(int slot) {
+        return parkedAtNanos[slot];
+    }
+
+    @Override
+    public void clear(int slot) {
+        parkedCars.set(slot, null);
+    }
+}
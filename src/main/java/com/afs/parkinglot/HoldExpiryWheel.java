@@ -0,0 +1,92 @@
+package com.afs.parkinglot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// 预留到期用的哈希时间轮：所有预留共用一个后台线程，登记、取消、到期都是均摊 O(1)
+// 新预留先进无锁队列，由时间轮线程在每个刻度搬进对应的桶；桶只由时间轮线程访问，不需要加锁
+// 取消的预留不从桶里删除，到刻度时发现已不是待生效状态直接丢弃
+final class HoldExpiryWheel {
+    static final HoldExpiryWheel SHARED = new HoldExpiryWheel(TimeUnit.MILLISECONDS.toNanos(10), 512);
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<ParkingHold>> buckets;
+    private final Queue<ParkingHold> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    // 在启动时间轮线程之前写入，之后只由时间轮线程读取
+    private long startNanos;
+    private long tick;
+
+    HoldExpiryWheel(long tickNanos, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    // 首次登记时才启动时间轮线程，不用预留功能就没有后台线程
+    void schedule(ParkingHold hold) {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startNanos = System.nanoTime();
+            Thread worker = new Thread(this::run, "parking-hold-expiry");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        pending.add(hold);
+    }
+
+    private void run() {
+        while (true) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+                continue;
+            }
+            transferPending();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        ParkingHold hold;
+        while ((hold = pending.poll()) != null) {
+            if (!hold.isActive()) {
+                continue;
+            }
+            // 已经过期的预留放进当前刻度的桶，本刻度就处理
+            long expiryTick = Math.max(tick, (hold.getDeadlineNanos() - startNanos) / tickNanos);
+            hold.remainingRounds = (expiryTick - tick) / (mask + 1);
+            buckets.get((int) (expiryTick & mask)).add(hold);
+        }
+    }
+
+    private void expire(List<ParkingHold> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            ParkingHold hold = bucket.get(i);
+            if (!hold.isActive()) {
+                continue;
+            }
+            if (hold.remainingRounds > 0) {
+                hold.remainingRounds--;
+                bucket.set(kept++, hold);
+                continue;
+            }
+            hold.expire();
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+}
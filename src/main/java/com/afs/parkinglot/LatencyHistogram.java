@@ -0,0 +1,80 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// 定长的 HDR 风格直方图：每个 2 的幂区间再细分 8 个子桶，相对误差约 12%
+// 桶数固定，记录时只做一次 LongAdder 累加，无锁、稳态下不分配，可以常开
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        counts[indexOf(clamped)].increment();
+        sum.add(clamped);
+    }
+
+    public long count() {
+        long total = 0;
+        for (LongAdder bucket : counts) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    public double mean() {
+        long total = count();
+        return total == 0 ? 0.0 : (double) sum.sum() / total;
+    }
+
+    // 返回给定分位（0~1）所在桶的上界
+    public long percentile(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,50 @@
+package com.afs.parkinglot;
+
+// 单个停车场的累计营收和停留时长，只由计费线程写入，其他线程随时可读
+// 各字段分别读取，彼此之间不保证是同一批次的值
+public final class LotBilling {
+    private final int lotId;
+    private volatile long stays;
+    private volatile long revenueCents;
+    private volatile long totalDwellNanos;
+    private volatile long maxDwellNanos;
+
+    LotBilling(int lotId) {
+        this.lotId = lotId;
+    }
+
+    public int getLotId() {
+        return lotId;
+    }
+
+    public long getStays() {
+        return stays;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public long getTotalDwellNanos() {
+        return totalDwellNanos;
+    }
+
+    public long getAverageDwellNanos() {
+        long count = stays;
+        return count == 0 ? 0 : totalDwellNanos / count;
+    }
+
+    public long getMaxDwellNanos() {
+        return maxDwellNanos;
+    }
+
+    // 只由计费线程调用
+    void add(long dwellNanos, long feeCents) {
+        stays = stays + 1;
+        revenueCents = revenueCents + feeCents;
+        totalDwellNanos = totalDwellNanos + dwellNanos;
+        if (dwellNanos > maxDwellNanos) {
+            maxDwellNanos = dwellNanos;
+        }
+    }
+}
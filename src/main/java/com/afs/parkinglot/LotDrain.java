@@ -0,0 +1,115 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 一个停车场的停用过程：停车场不再接收新车，车全部离场（车主取走或迁走）且预留都已了结后，停车小弟不再管理它
+// 开启迁车时由后台线程按批迁走在停车辆，每批之间暂停，避免和正常停取车争抢；完成时靠停车场事件得知，不轮询
+public class LotDrain implements ParkingLotListener, Closeable {
+    private final StandardParkingBoy parkingBoy;
+    private final ParkingLot parkingLot;
+    private final long[] batch;
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final AtomicInteger movedCount = new AtomicInteger();
+    private ScheduledExecutorService mover;
+    // 下一批从哪个车位号开始收集，只由迁车线程读写
+    private int cursor;
+    // 迁车途中最后一辆车离开停车场时先不算完成，等迁车线程停好车、计完数后自己再检查
+    private volatile boolean moving;
+
+    // batchSize 为 0 表示不迁车
+    LotDrain(StandardParkingBoy parkingBoy, ParkingLot parkingLot, int batchSize) {
+        this.parkingBoy = parkingBoy;
+        this.parkingLot = parkingLot;
+        this.batch = new long[batchSize];
+    }
+
+    void start(long pauseNanos) {
+        parkingLot.addListener(this);
+        if (batch.length > 0) {
+            synchronized (this) {
+                mover = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "parking-lot-drain-" + parkingLot.getId());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                mover.scheduleWithFixedDelay(this::moveBatch, 0, Math.max(1, pauseNanos), TimeUnit.NANOSECONDS);
+            }
+        }
+        // 停用时停车场可能本来就是空的
+        checkDrained();
+    }
+
+    public ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    // 已迁到其他停车场的车辆数
+    public int getMovedCount() {
+        return movedCount.get();
+    }
+
+    public boolean isDrained() {
+        return drained.getCount() == 0;
+    }
+
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        return drained.await(timeout, unit);
+    }
+
+    // 停止后台迁车；停车场仍保持停用，剩下的车等车主取走
+    @Override
+    public synchronized void close() {
+        if (mover != null) {
+            mover.shutdownNow();
+            mover = null;
+        }
+    }
+
+    @Override
+    public void onAvailableCountChanged(ParkingLot parkingLot) {
+        if (!moving) {
+            checkDrained();
+        }
+    }
+
+    // 其他停车场没有空位时本批提前结束，游标不动，下一批从同一位置再试；迁车前刚被车主取走的车直接跳过
+    private void moveBatch() {
+        int count = parkingLot.collectParkedTickets(cursor, batch);
+        for (int i = 0; i < count; i++) {
+            Car car = parkingLot.parkedCar(batch[i]);
+            if (car == null) {
+                continue;
+            }
+            moving = true;
+            ParkingTicket moved = parkingBoy.relocate(parkingLot, batch[i], car.getBayType());
+            if (moved != null) {
+                movedCount.incrementAndGet();
+            }
+            moving = false;
+            checkDrained();
+            // 迁车没成而车还在原车位，说明其他停车场没有空位
+            if (moved == null && parkingLot.parkedCar(batch[i]) != null) {
+                return;
+            }
+        }
+        // 扫到末尾后从头再来：迁车期间兑现的预留可能停进了已经扫过的车位
+        cursor = count < batch.length ? 0 : ParkingTicket.slotOf(batch[count - 1]) + 1;
+    }
+
+    private void checkDrained() {
+        if (parkingLot.getAvailableCount() != parkingLot.getCapacity() || !completed.compareAndSet(false, true)) {
+            return;
+        }
+        parkingLot.removeListener(this);
+        close();
+        parkingBoy.removeParkingLot(parkingLot);
+        drained.countDown();
+    }
+}
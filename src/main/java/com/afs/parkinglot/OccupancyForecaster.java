@@ -0,0 +1,143 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 停车场占用预测：按固定间隔采样各停车场的已停车数，记入时间序列，
+// 并用 Holt 线性指数平滑（水平 + 趋势）增量更新预测，每个样本 O(1)
+// 每次采样后以 onAvailableCountChanged 通知订阅者，按预测选场的策略据此重新评分
+public class OccupancyForecaster implements Closeable {
+    private static final int DEFAULT_HISTORY_SIZE = 3600;
+    private static final double DEFAULT_LEVEL_SMOOTHING = 0.5;
+    private static final double DEFAULT_TREND_SMOOTHING = 0.3;
+
+    private final long intervalNanos;
+    private final int historySize;
+    private final double levelSmoothing;
+    private final double trendSmoothing;
+    private final Map<ParkingLot, LotModel> models = new ConcurrentHashMap<>();
+    private final List<ParkingLotListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService sampler;
+
+    public OccupancyForecaster(long interval, TimeUnit unit) {
+        this(interval, unit, DEFAULT_HISTORY_SIZE, DEFAULT_LEVEL_SMOOTHING, DEFAULT_TREND_SMOOTHING);
+    }
+
+    // levelSmoothing、trendSmoothing 取值 (0, 1]，越大越看重最近的样本
+    public OccupancyForecaster(long interval, TimeUnit unit, int historySize, double levelSmoothing, double trendSmoothing) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive: " + interval);
+        }
+        if (levelSmoothing <= 0 || levelSmoothing > 1 || trendSmoothing <= 0 || trendSmoothing > 1) {
+            throw new IllegalArgumentException("Smoothing factors must be in (0, 1]");
+        }
+        this.intervalNanos = unit.toNanos(interval);
+        this.historySize = historySize;
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+    }
+
+    public void track(ParkingLot parkingLot) {
+        models.computeIfAbsent(parkingLot, lot -> new LotModel(new OccupancyHistory(intervalNanos, historySize)));
+    }
+
+    public void addListener(ParkingLotListener listener) {
+        listeners.add(listener);
+    }
+
+    // 启动后台定时采样；也可以不启动，由调用方按间隔调用 sample()
+    public synchronized void start() {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "parking-occupancy-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    // 对所有跟踪的停车场各采一个样本
+    public void sample() {
+        for (Map.Entry<ParkingLot, LotModel> entry : models.entrySet()) {
+            ParkingLot parkingLot = entry.getKey();
+            entry.getValue().update(parkingLot.getCapacity() - parkingLot.getAvailableCount(), levelSmoothing, trendSmoothing);
+            for (ParkingLotListener listener : listeners) {
+                listener.onAvailableCountChanged(parkingLot);
+            }
+        }
+    }
+
+    // 未跟踪的停车场返回 null
+    public OccupancyHistory getHistory(ParkingLot parkingLot) {
+        LotModel model = models.get(parkingLot);
+        return model == null ? null : model.history;
+    }
+
+    // 预测 horizon 之后的空位数：以当前实际空位为起点，按平滑后的趋势外推，限定在 [0, 容量]
+    public int predictAvailableCount(ParkingLot parkingLot, long horizon, TimeUnit unit) {
+        return (int) Math.round(predictAvailable(parkingLot, parkingLot.getAvailableCount(), unit.toNanos(horizon)));
+    }
+
+    // 按当前趋势预计多久后停满；已经停满返回 0，趋势不是在上升时返回 Long.MAX_VALUE
+    public long predictNanosUntilFull(ParkingLot parkingLot) {
+        int available = parkingLot.getAvailableCount();
+        if (available == 0) {
+            return 0;
+        }
+        LotModel model = models.get(parkingLot);
+        double trend = model == null ? 0 : model.trend;
+        if (trend <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil(available / trend * intervalNanos);
+    }
+
+    double predictAvailable(ParkingLot parkingLot, int availableCount, long horizonNanos) {
+        LotModel model = models.get(parkingLot);
+        if (model == null) {
+            return availableCount;
+        }
+        double predicted = availableCount - model.trend * horizonNanos / intervalNanos;
+        return Math.max(0, Math.min(parkingLot.getCapacity(), predicted));
+    }
+
+    private static final class LotModel {
+        private final OccupancyHistory history;
+        private double level;
+        // 每个采样间隔已停车数的变化量，由采样线程写入，选场线程读取
+        private volatile double trend;
+        private boolean initialized;
+
+        private LotModel(OccupancyHistory history) {
+            this.history = history;
+        }
+
+        private synchronized void update(int occupied, double levelSmoothing, double trendSmoothing) {
+            history.record(occupied);
+            if (!initialized) {
+                level = occupied;
+                initialized = true;
+                return;
+            }
+            double previousLevel = level;
+            level = levelSmoothing * occupied + (1 - levelSmoothing) * (level + trend);
+            trend = trendSmoothing * (level - previousLevel) + (1 - trendSmoothing) * trend;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.afs.parkinglot;
+
+import java.util.Arrays;
+
+// 单个停车场的占用时间序列：按固定间隔采样，环形缓冲区只保留最近 capacity 个样本
+// 每个样本只存已停车数（4 字节），时间由采样间隔隐含，不单独存储
+public final class OccupancyHistory {
+    private final long intervalNanos;
+    private final int[] samples;
+    private long recorded;
+
+    OccupancyHistory(long intervalNanos, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History size must be positive: " + capacity);
+        }
+        this.intervalNanos = intervalNanos;
+        this.samples = new int[capacity];
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    // 当前保留的样本数
+    public synchronized int size() {
+        return (int) Math.min(recorded, samples.length);
+    }
+
+    // 按时间先后返回保留的样本，最后一个是最新的
+    public synchronized int[] toArray() {
+        int size = (int) Math.min(recorded, samples.length);
+        int[] ordered = new int[size];
+        int oldest = (int) ((recorded - size) % samples.length);
+        for (int i = 0; i < size; i++) {
+            ordered[i] = samples[(oldest + i) % samples.length];
+        }
+        return ordered;
+    }
+
+    public synchronized int latest() {
+        return recorded == 0 ? 0 : samples[(int) ((recorded - 1) % samples.length)];
+    }
+
+    synchronized void record(int occupiedCount) {
+        samples[(int) (recorded % samples.length)] = occupiedCount;
+        recorded++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,99 @@
+package com.afs.parkinglot;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 堆外的停车记录：每个车位一条定长记录，整块放在一个直接内存或内存映射缓冲区里，GC 不扫描其中内容
+// 记录布局：代数 int | 车位类型 byte | 车牌长度 byte | 保留 2 字节 | 停入时刻 long | 车牌 UTF-16
+// 车牌字符数上限由记录长度决定：32 字节的记录放 8 个字符，48 字节放 16 个
+// 缓冲区只用绝对位置读写，不改变 position，不同车位可以并发访问
+final class OffHeapSlotStore implements SlotStore {
+    static final int RECORD_BYTES = 32;
+    private static final int GENERATION_OFFSET = 0;
+    private static final int BAY_TYPE_OFFSET = 4;
+    private static final int PLATE_LENGTH_OFFSET = 5;
+    private static final int PARKED_AT_OFFSET = 8;
+    private static final int PLATE_OFFSET = 16;
+    private static final byte NO_PLATE = -1;
+    private static final byte LONG_PLATE = -2;
+
+    private final ByteBuffer records;
+    private final int recordBytes;
+    private final int maxInlinePlateChars;
+    // 写入记录的时刻 = System.nanoTime() + clockOffsetNanos；落盘的记录用墙上时钟，重启后停留时长仍然连续
+    private final long clockOffsetNanos;
+    // 放不进定长记录的超长车牌很少见，单独放在堆上，不随映射文件落盘
+    private final Map<Integer, String> longPlates = new ConcurrentHashMap<>();
+
+    OffHeapSlotStore(int capacity) {
+        this(ByteBuffer.allocateDirect(capacity * RECORD_BYTES), RECORD_BYTES, 0);
+    }
+
+    OffHeapSlotStore(ByteBuffer records, int recordBytes, long clockOffsetNanos) {
+        this.records = records;
+        this.recordBytes = recordBytes;
+        this.maxInlinePlateChars = (recordBytes - PLATE_OFFSET) / Character.BYTES;
+        this.clockOffsetNanos = clockOffsetNanos;
+    }
+
+    @Override
+    public void store(int slot, Car car, long parkedAtNanos) {
+        int record = slot * recordBytes;
+        records.putLong(record + PARKED_AT_OFFSET, parkedAtNanos + clockOffsetNanos);
+        records.put(record + BAY_TYPE_OFFSET, (byte) car.getBayType().ordinal());
+        String plate = car.getPlate();
+        if (plate == null) {
+            records.put(record + PLATE_LENGTH_OFFSET, NO_PLATE);
+        } else if (plate.length() > maxInlinePlateChars) {
+            longPlates.put(slot, plate);
+            records.put(record + PLATE_LENGTH_OFFSET, LONG_PLATE);
+        } else {
+            for (int i = 0; i < plate.length(); i++) {
+                records.putChar(record + PLATE_OFFSET + i * Character.BYTES, plate.charAt(i));
+            }
+            records.put(record + PLATE_LENGTH_OFFSET, (byte) plate.length());
+        }
+    }
+
+    // 超长车牌在重启后找不回来，这辆车按无车牌处理
+    @Override
+    public Car load(int slot) {
+        int record = slot * recordBytes;
+        BayType bayType = BayType.values()[records.get(record + BAY_TYPE_OFFSET)];
+        byte length = records.get(record + PLATE_LENGTH_OFFSET);
+        if (length == NO_PLATE) {
+            return new Car(bayType);
+        }
+        if (length == LONG_PLATE) {
+            return new Car(longPlates.get(slot), bayType);
+        }
+        char[] plate = new char[length];
+        for (int i = 0; i < length; i++) {
+            plate[i] = records.getChar(record + PLATE_OFFSET + i * Character.BYTES);
+        }
+        return new Car(new String(plate), bayType);
+    }
+
+    @Override
+    public long parkedAt(int slot) {
+        return records.getLong(slot * recordBytes + PARKED_AT_OFFSET) - clockOffsetNanos;
+    }
+
+    @Override
+    public void clear(int slot) {
+        if (records.get(slot * recordBytes + PLATE_LENGTH_OFFSET) == LONG_PLATE) {
+            longPlates.remove(slot);
+        }
+    }
+
+    @Override
+    public void storeGeneration(int slot, int generation) {
+        records.putInt(slot * recordBytes + GENERATION_OFFSET, generation);
+    }
+
+    @Override
+    public int loadGeneration(int slot) {
+        return records.getInt(slot * recordBytes + GENERATION_OFFSET);
+    }
+}
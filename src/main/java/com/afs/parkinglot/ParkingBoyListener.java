@@ -0,0 +1,11 @@
+package com.afs.parkinglot;
+
+// 停车小弟管理的停车场增删事件的订阅接口，用于让停车经理等汇总方跟上小弟的名册变化
+// 事件在调用增删的线程上同步分发，增删很少发生，不在停车、取车的热路径上
+public interface ParkingBoyListener {
+    default void onParkingLotAdded(StandardParkingBoy parkingBoy, ParkingLot parkingLot) {
+    }
+
+    default void onParkingLotRemoved(StandardParkingBoy parkingBoy, ParkingLot parkingLot) {
+    }
+}
@@ -1,7 +1,22 @@
 package com.afs.parkinglot;
 
 public class ParkingException extends RuntimeException {
+    // 停满、错票在高峰期是常态：预先创建好不带堆栈的异常，抛出时不再分配、不再填充堆栈
+    static final ParkingException NULL_CAR = stackless("Cannot park null car");
+    static final ParkingException NO_AVAILABLE_POSITION = stackless("No available position.");
+    static final ParkingException UNRECOGNIZED_TICKET = stackless("Unrecognized parking ticket.");
+    static final ParkingException NO_PARKING_LOT_MANAGED = stackless("No parking lot managed.");
+    static final ParkingException DUPLICATE_CAR = stackless("Car already parked.");
+
     public ParkingException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+
+    private ParkingException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    private static ParkingException stackless(String message) {
+        return new ParkingException(message, false);
+    }
+}
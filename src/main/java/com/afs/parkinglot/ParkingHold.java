@@ -0,0 +1,68 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 为在路上的车预留的一个车位：预留期间计入停车场的已停车数，到期未到达自动释放
+// 预留只占车位数，不占具体车位，车到达停车时才分配车位
+public final class ParkingHold {
+    private static final int PENDING = 0;
+    private static final int REDEEMED = 1;
+    private static final int CANCELLED = 2;
+    private static final int EXPIRED = 3;
+
+    private final ParkingLot parkingLot;
+    // 预占车位数的车位区段，车到达时在这个区段里分配车位
+    private final BayGroup bayGroup;
+    private final long deadlineNanos;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    // 还需要转几圈才到期，只由时间轮线程读写
+    long remainingRounds;
+
+    ParkingHold(ParkingLot parkingLot, BayGroup bayGroup, long deadlineNanos) {
+        this.parkingLot = parkingLot;
+        this.bayGroup = bayGroup;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    // 预留到的车位类型，本类车位满时可能是允许的更大车位
+    public BayType getBayType() {
+        return bayGroup.getType();
+    }
+
+    BayGroup getBayGroup() {
+        return bayGroup;
+    }
+
+    // 还没有停车、取消或到期
+    public boolean isActive() {
+        return state.get() == PENDING;
+    }
+
+    // 主动取消并归还车位，预留已经用掉、取消或到期时返回 false
+    public boolean cancel() {
+        if (!state.compareAndSet(PENDING, CANCELLED)) {
+            return false;
+        }
+        parkingLot.releaseHold(bayGroup);
+        return true;
+    }
+
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    // 车到达停车时把预留转为停车，成功后车位计数已占好，不再归还
+    boolean redeem() {
+        return state.compareAndSet(PENDING, REDEEMED);
+    }
+
+    void expire() {
+        if (state.compareAndSet(PENDING, EXPIRED)) {
+            parkingLot.releaseHold(bayGroup);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.afs.parkinglot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+// 停车场状态的预写日志：停车、取车事件以定长记录追加到日志段文件，后台线程按组提交（一次 force 覆盖一批记录）
+// 定期把所有停车场的在停小票写成紧凑快照，并切换到新的日志段，恢复时加载快照再重放之后的日志段
+// 停车线程只把记录写进内存缓冲区，不等待落盘；需要确认持久化时调用 sync()
+public class ParkingJournal implements ParkingLotListener, Closeable {
+    // 记录布局（16 字节）：类型 int | 停车场编号 int | 负载 long
+    // 不全是标准车位的停车场在 LOT 记录之前为每类车位写一条 BAY 记录，负载为 类型序号 << 32 | 数量
+    // 有车牌或不是标准车型的车在 PARK 记录之前紧跟若干条 CAR 记录，和 PARK 记录一次性写入缓冲区：
+    // 停车场编号的位置存 车型序号 << 16 | 车牌长度（无车牌为 0xFFFF），负载依次存 4 个车牌字符
+    private static final int RECORD_SIZE = 16;
+    private static final int LOT_RECORD = 1;
+    private static final int PARK_RECORD = 2;
+    private static final int FETCH_RECORD = 3;
+    private static final int BAY_RECORD = 4;
+    private static final int CAR_RECORD = 5;
+    private static final int NO_PLATE = 0xFFFF;
+    private static final int PLATE_CHARS_PER_RECORD = 4;
+    // 快照布局：魔数 int | 起始日志段 long | 停车场数 int，每个停车场：编号 int | 容量 int | 选项 byte |
+    // 车位类型数 byte | 各类车位数 int… | 在停车数 int，每辆车：小票编号 long | 车型 byte | 有车牌 boolean | 车牌 UTF
+    private static final int SNAPSHOT_MAGIC = 0x504B4C53;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SNAPSHOT_THRESHOLD_BYTES = 64L << 20;
+
+    private final Path directory;
+    private final List<ParkingLot> parkingLots = new CopyOnWriteArrayList<>();
+    // lock 保护内存缓冲区，停车线程只在它上面短暂停留；flushLock 串行化落盘和切换日志段
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private final Object snapshotLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentBytes;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private ParkingJournal(Path directory, long segmentNumber) throws IOException {
+        this.directory = directory;
+        this.segmentNumber = segmentNumber;
+        this.segment = openSegment(segmentNumber);
+        this.flusher = new Thread(this::runFlusher, "parking-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    // 打开（必要时创建）日志目录，恢复其中记录的全部停车场，并继续在该目录记日志
+    // 恢复出来的停车场沿用原编号，应在本进程创建其他停车场之前调用
+    public static ParkingJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<Integer, ParkingLot> recovered = new LinkedHashMap<>();
+        // BAY 记录和随后的 LOT 记录可能被切换日志段分开，跨日志段保留
+        Map<Integer, BayLayout> pendingLayouts = new HashMap<>();
+        PendingCar pendingCar = new PendingCar();
+        long firstSegment = readSnapshot(directory.resolve(SNAPSHOT_FILE), recovered);
+        long lastSegment = firstSegment - 1;
+        for (long number : listSegments(directory)) {
+            if (number >= firstSegment) {
+                replaySegment(directory.resolve(segmentName(number)), recovered, pendingLayouts, pendingCar);
+            }
+            lastSegment = Math.max(lastSegment, number);
+        }
+
+        ParkingJournal journal = new ParkingJournal(directory, lastSegment + 1);
+        for (ParkingLot parkingLot : recovered.values()) {
+            journal.parkingLots.add(parkingLot);
+            parkingLot.addListener(journal);
+        }
+        // 恢复完成后立即压缩：写一份新快照，旧日志段随之删除
+        journal.snapshot();
+        journal.flusher.start();
+        return journal;
+    }
+
+    public List<ParkingLot> getParkingLots() {
+        return Collections.unmodifiableList(new ArrayList<>(parkingLots));
+    }
+
+    // 开始为停车场记日志；停车场里已经停着的车会一并写入
+    public void attach(ParkingLot parkingLot) {
+        if (parkingLots.contains(parkingLot)) {
+            return;
+        }
+        // 先登记再写记录：并发的快照要么包含这个停车场，要么这条记录落在快照之后的日志段
+        parkingLots.add(parkingLot);
+        BayLayout bayLayout = parkingLot.getBayLayout();
+        if (!bayLayout.equals(BayLayout.standard(parkingLot.getCapacity()))) {
+            for (BayType type : BayType.values()) {
+                if (bayLayout.getCount(type) > 0) {
+                    append(BAY_RECORD, parkingLot.getId(), ((long) type.ordinal() << 32) | bayLayout.getCount(type));
+                }
+            }
+        }
+        append(LOT_RECORD, parkingLot.getId(),
+                ((long) parkingLot.getCapacity() << 8) | options(parkingLot));
+        parkingLot.addListener(this);
+        parkingLot.forEachParkedTicket(ticketId -> appendPark(parkingLot, ticketId));
+    }
+
+    @Override
+    public void onParked(ParkingLot parkingLot, long ticketId) {
+        appendPark(parkingLot, ticketId);
+    }
+
+    @Override
+    public void onFetched(ParkingLot parkingLot, long ticketId) {
+        append(FETCH_RECORD, parkingLot.getId(), ticketId);
+    }
+
+    // 立即落盘，返回时此前的所有事件都已持久化
+    public void sync() throws IOException {
+        synchronized (flushLock) {
+            flushLocked();
+        }
+    }
+
+    // 写一份全部停车场的快照并切换日志段，之后旧的日志段不再需要
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long firstSegment;
+            synchronized (flushLock) {
+                flushLocked();
+                synchronized (lock) {
+                    segment.close();
+                    segmentNumber++;
+                    segment = openSegment(segmentNumber);
+                    segmentBytes = 0;
+                    firstSegment = segmentNumber;
+                }
+            }
+
+            // 快照读取的是实时状态，可能已包含新日志段里的部分事件；重放对已恢复的状态是幂等的
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(firstSegment);
+                List<ParkingLot> lots = new ArrayList<>(parkingLots);
+                out.writeInt(lots.size());
+                for (ParkingLot parkingLot : lots) {
+                    LongStream.Builder parked = LongStream.builder();
+                    parkingLot.forEachParkedTicket(parked::add);
+                    long[] ticketIds = parked.build().toArray();
+                    out.writeInt(parkingLot.getId());
+                    out.writeInt(parkingLot.getCapacity());
+                    out.writeByte(options(parkingLot));
+                    BayLayout bayLayout = parkingLot.getBayLayout();
+                    out.writeByte(BayType.COUNT);
+                    for (BayType type : BayType.values()) {
+                        out.writeInt(bayLayout.getCount(type));
+                    }
+                    out.writeInt(ticketIds.length);
+                    for (long ticketId : ticketIds) {
+                        out.writeLong(ticketId);
+                        // 写快照期间已被取走的车不知道车型和车牌，恢复时按车位类型补上，之后的取车记录会把它移除
+                        Car car = parkingLot.parkedCar(ticketId);
+                        out.writeByte(car == null ? -1 : car.getBayType().ordinal());
+                        out.writeBoolean(car != null && car.getPlate() != null);
+                        if (car != null && car.getPlate() != null) {
+                            out.writeUTF(car.getPlate());
+                        }
+                    }
+                }
+                out.flush();
+                // 快照内容落盘之后才能换名，否则崩溃后可能留下一个空的或写了一半的快照
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // 换名本身也落盘之后才删除旧日志段，否则崩溃后可能既看不到新快照也找不到旧日志段
+            forceDirectory(directory);
+
+            for (long number : listSegments(directory)) {
+                if (number < firstSegment) {
+                    Files.deleteIfExists(directory.resolve(segmentName(number)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (flushLock) {
+            flushLocked();
+            segment.close();
+        }
+    }
+
+    // 车型和车牌与停车记录一起写：同一批记录在同一个缓冲区里连续出现，重放时不会和其他停车场的记录交错
+    private void appendPark(ParkingLot parkingLot, long ticketId) {
+        Car car = parkingLot.parkedCar(ticketId);
+        if (car == null || (car.getPlate() == null && car.getBayType() == BayType.STANDARD)) {
+            append(PARK_RECORD, parkingLot.getId(), ticketId);
+            return;
+        }
+        String plate = car.getPlate();
+        int carRecords = plate == null ? 1 : Math.max(1, (plate.length() + PLATE_CHARS_PER_RECORD - 1) / PLATE_CHARS_PER_RECORD);
+        int header = car.getBayType().ordinal() << 16 | (plate == null ? NO_PLATE : plate.length());
+        ByteBuffer records = ByteBuffer.allocate((carRecords + 1) * RECORD_SIZE);
+        for (int record = 0; record < carRecords; record++) {
+            long chars = 0;
+            for (int i = record * PLATE_CHARS_PER_RECORD; i < (record + 1) * PLATE_CHARS_PER_RECORD; i++) {
+                chars = chars << 16 | (plate != null && i < plate.length() ? plate.charAt(i) : 0);
+            }
+            records.putInt(CAR_RECORD).putInt(header).putLong(chars);
+        }
+        records.putInt(PARK_RECORD).putInt(parkingLot.getId()).putLong(ticketId);
+        records.flip();
+        append(records);
+    }
+
+    private void append(ByteBuffer records) {
+        while (true) {
+            synchronized (lock) {
+                if (pending.remaining() >= records.remaining()) {
+                    pending.put(records);
+                    return;
+                }
+            }
+            try {
+                sync();
+            } catch (IOException e) {
+                // 失败已记录在 failure 中，由下一次 sync() 抛给调用方
+                return;
+            }
+        }
+    }
+
+    private void append(int type, int lotId, long payload) {
+        while (true) {
+            synchronized (lock) {
+                if (pending.remaining() >= RECORD_SIZE) {
+                    pending.putInt(type).putInt(lotId).putLong(payload);
+                    return;
+                }
+            }
+            // 缓冲区写满说明落盘跟不上，由写入线程顺带落盘，形成背压
+            try {
+                sync();
+            } catch (IOException e) {
+                // 失败已记录在 failure 中，由下一次 sync() 抛给调用方
+                return;
+            }
+        }
+    }
+
+    // 调用方须持有 flushLock；锁顺序始终是 flushLock -> lock
+    private void flushLocked() throws IOException {
+        IOException previous = failure;
+        if (previous != null) {
+            throw previous;
+        }
+        ByteBuffer batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = writing;
+            writing = batch;
+        }
+        batch.flip();
+        if (!batch.hasRemaining()) {
+            batch.clear();
+            return;
+        }
+        try {
+            while (batch.hasRemaining()) {
+                segmentBytes += segment.write(batch);
+            }
+            segment.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+            try {
+                boolean segmentTooLarge;
+                synchronized (flushLock) {
+                    flushLocked();
+                    segmentTooLarge = segmentBytes > SNAPSHOT_THRESHOLD_BYTES;
+                }
+                if (segmentTooLarge) {
+                    snapshot();
+                }
+            } catch (IOException e) {
+                // 失败已记录在 failure 中，由下一次 sync() 抛给调用方
+                return;
+            }
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(directory.resolve(segmentName(number)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // 有的平台（如 Windows）不能以文件方式打开目录，只能依赖文件系统自身的元数据顺序
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static String segmentName(long number) {
+        return SEGMENT_PREFIX + number + SEGMENT_SUFFIX;
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    // 读取快照恢复停车场，返回需要从哪个日志段开始重放；没有快照时从 0 开始
+    private static long readSnapshot(Path file, Map<Integer, ParkingLot> recovered) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a parking snapshot: " + file);
+            }
+            long firstSegment = in.readLong();
+            int lotCount = in.readInt();
+            for (int i = 0; i < lotCount; i++) {
+                int id = in.readInt();
+                int capacity = in.readInt();
+                int options = in.readByte();
+                BayLayout bayLayout = new BayLayout();
+                int typeCount = in.readByte();
+                for (int t = 0; t < typeCount; t++) {
+                    bayLayout = bayLayout.with(BayType.values()[t], in.readInt());
+                }
+                ParkingLot parkingLot = new ParkingLot(id, bayLayout, policyOf(options), storageOf(options));
+                int parked = in.readInt();
+                for (int j = 0; j < parked; j++) {
+                    long ticketId = in.readLong();
+                    int bayType = in.readByte();
+                    String plate = in.readBoolean() ? in.readUTF() : null;
+                    restore(parkingLot, ticketId, bayType < 0 ? null : new Car(plate, BayType.values()[bayType]));
+                }
+                recovered.put(id, parkingLot);
+            }
+            return firstSegment;
+        }
+    }
+
+    private static void replaySegment(Path file, Map<Integer, ParkingLot> recovered,
+                                      Map<Integer, BayLayout> pendingLayouts, PendingCar pendingCar) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    replayRecord(buffer.getInt(), buffer.getInt(), buffer.getLong(), recovered, pendingLayouts, pendingCar);
+                }
+                buffer.compact();
+            }
+            // 末尾不足一条记录的残片是崩溃时写了一半的数据，直接丢弃
+        }
+    }
+
+    private static void replayRecord(int type, int lotId, long payload, Map<Integer, ParkingLot> recovered,
+                                     Map<Integer, BayLayout> pendingLayouts, PendingCar pendingCar) {
+        if (type == CAR_RECORD) {
+            pendingCar.add(lotId, payload);
+            return;
+        }
+        // CAR 记录只属于紧随其后的 PARK 记录
+        Car car = type == PARK_RECORD ? pendingCar.take() : null;
+        pendingCar.reset();
+        if (type == BAY_RECORD) {
+            BayLayout bayLayout = pendingLayouts.getOrDefault(lotId, new BayLayout());
+            pendingLayouts.put(lotId, bayLayout.with(BayType.values()[(int) (payload >>> 32)], (int) payload));
+            return;
+        }
+        if (type == LOT_RECORD) {
+            BayLayout bayLayout = pendingLayouts.remove(lotId);
+            if (!recovered.containsKey(lotId)) {
+                int capacity = (int) (payload >>> 8);
+                int options = (int) (payload & 0xFF);
+                recovered.put(lotId, new ParkingLot(lotId, bayLayout == null ? BayLayout.standard(capacity) : bayLayout,
+                        policyOf(options), storageOf(options)));
+            }
+            return;
+        }
+        ParkingLot parkingLot = recovered.get(lotId);
+        if (parkingLot == null) {
+            return;
+        }
+        if (type == PARK_RECORD) {
+            restore(parkingLot, payload, car);
+        } else if (type == FETCH_RECORD) {
+            parkingLot.tryFetch(new ParkingTicket(payload, parkingLot));
+        }
+    }
+
+    // 停车场选项字节：低 4 位是选位规则，高 4 位是存储方式
+    private static int options(ParkingLot parkingLot) {
+        return parkingLot.getSlotStorage().ordinal() << 4 | parkingLot.getSlotAllocationPolicy().ordinal();
+    }
+
+    private static SlotAllocationPolicy policyOf(int options) {
+        return SlotAllocationPolicy.values()[options & 0xF];
+    }
+
+    private static SlotStorage storageOf(int options) {
+        return SlotStorage.values()[options >>> 4 & 0xF];
+    }
+
+    // 没有记下车型和车牌的车（标准车型无车牌，或写快照期间已被取走）按所在车位的类型补上
+    private static void restore(ParkingLot parkingLot, long ticketId, Car car) {
+        BayType bayType = parkingLot.getBayTypeOfSlot(ParkingTicket.slotOf(ticketId));
+        if (bayType != null) {
+            parkingLot.restore(ticketId, car != null ? car : new Car(bayType));
+        }
+    }
+
+    // 重放时正在拼接的 CAR 记录；记录不全（崩溃时写了一半）时不算数
+    private static final class PendingCar {
+        private final StringBuilder plate = new StringBuilder();
+        private int header = -1;
+
+        void add(int header, long chars) {
+            if (this.header != header) {
+                reset();
+                this.header = header;
+            }
+            for (int shift = 48; shift >= 0; shift -= 16) {
+                plate.append((char) (chars >>> shift));
+            }
+        }
+
+        Car take() {
+            if (header < 0) {
+                return null;
+            }
+            int length = header & 0xFFFF;
+            BayType bayType = BayType.values()[header >>> 16];
+            if (length == NO_PLATE) {
+                return new Car(bayType);
+            }
+            return plate.length() < length ? null : new Car(plate.substring(0, length), bayType);
+        }
+
+        void reset() {
+            header = -1;
+            plate.setLength(0);
+        }
+    }
+}
@@ -1,58 +1,723 @@
 package com.afs.parkinglot;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongConsumer;
 
 public class ParkingLot {
+    private static final ParkingLotListener[] NO_LISTENERS = new ParkingLotListener[0];
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id;
     private final int capacity;
-    private final Map<ParkingTicket, Car> parkedCars;
-    private int currentCount;
+    // 按车位号存放停着的车和停入时刻，在推进代数之前写入，读到代数即可见
+    private final SlotStorage slotStorage;
+    private final SlotStore slotStore;
+    // 每个车位的代数，奇数表示有车；取车时用 CAS 推进代数，同一张小票只能取一次
+    // 堆外存储时也留在堆上：只是一个 int 数组，不含引用，GC 不需要扫描
+    private final AtomicIntegerArray generations;
+    private final BayLayout bayLayout;
+    // 按车位号顺序排列的各类车位区段，以及按车位类型索引的同一组区段（没有该类车位时为 null）
+    private final BayGroup[] bayGroups;
+    private final BayGroup[] groupsByType;
+    private final SlotAllocationPolicy slotAllocationPolicy;
+    // 多个出入口并发停取车：车位数在各类区段上用 CAS 预占，车位用 CAS 认领，不加全局锁
+    // currentCount 是各区段之和，用于整体空位数和停满/不再停满事件
+    private final AtomicInteger currentCount;
+    // 写时复制的数组，通知时直接遍历，没有订阅者时不产生任何分配
+    private volatile ParkingLotListener[] listeners = NO_LISTENERS;
+    // 停用中的停车场不再接收新车，已停的车和已有的预留不受影响
+    private volatile boolean draining;
+    // 挂接到落盘状态时车位代数和占用位图延后到第一次停取车才从存储里读出，之前的空位数来自上次保存的计数
+    private volatile boolean loaded;
 
     public ParkingLot() {
         this(10);
     }
 
     public ParkingLot(int capacity) {
+        this(capacity, SlotAllocationPolicy.NEXT_FREE);
+    }
+
+    public ParkingLot(int capacity, SlotAllocationPolicy slotAllocationPolicy) {
+        this(NEXT_ID.incrementAndGet(), checkCapacity(capacity), slotAllocationPolicy);
+    }
+
+    // 车位很多的停车场可以选择堆外存储，停着的车不在堆上留下对象
+    public ParkingLot(int capacity, SlotAllocationPolicy slotAllocationPolicy, SlotStorage slotStorage) {
+        this(BayLayout.standard(checkCapacity(capacity)), slotAllocationPolicy, slotStorage);
+    }
+
+    // 混合车位的停车场：小型、标准、大型、充电车位各自分配和计数
+    public ParkingLot(BayLayout bayLayout) {
+        this(bayLayout, SlotAllocationPolicy.NEXT_FREE);
+    }
+
+    public ParkingLot(BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy) {
+        this(NEXT_ID.incrementAndGet(), bayLayout, slotAllocationPolicy);
+    }
+
+    public ParkingLot(BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy, SlotStorage slotStorage) {
+        this(NEXT_ID.incrementAndGet(), bayLayout, slotAllocationPolicy, slotStorage);
+    }
+
+    // 从持久化状态恢复时沿用原来的编号，已签发小票里的停车场编号才能继续生效
+    ParkingLot(int id, int capacity, SlotAllocationPolicy slotAllocationPolicy) {
+        this(id, BayLayout.standard(checkCapacity(capacity)), slotAllocationPolicy);
+    }
+
+    ParkingLot(int id, BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy) {
+        this(id, bayLayout, slotAllocationPolicy, SlotStorage.HEAP);
+    }
+
+    ParkingLot(int id, BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy, SlotStorage slotStorage) {
+        this(id, bayLayout, slotAllocationPolicy, slotStorage,
+                slotStorage.create(checkCapacity(bayLayout.getTotal())), null);
+    }
+
+    // 挂接已有的停车记录：occupiedCounts 是上次保存的各类车位已停车数（按车位类型序号），为 null 表示存储是空的
+    ParkingLot(int id, BayLayout bayLayout, SlotAllocationPolicy slotAllocationPolicy, SlotStorage slotStorage,
+               SlotStore slotStore, int[] occupiedCounts) {
+        int capacity = checkCapacity(bayLayout.getTotal());
+        if (id <= 0 || id > ParkingTicket.MAX_LOT_ID) {
+            throw new IllegalStateException("Parking lot id out of range: " + id);
+        }
+        NEXT_ID.accumulateAndGet(id, Math::max);
+        this.id = id;
         this.capacity = capacity;
-        this.parkedCars = new HashMap<>();
-        this.currentCount = 0;
+        this.slotStorage = slotStorage;
+        this.slotStore = slotStore;
+        this.generations = new AtomicIntegerArray(capacity);
+        this.bayLayout = bayLayout;
+        this.groupsByType = new BayGroup[BayType.COUNT];
+        List<BayGroup> groups = new ArrayList<>();
+        int offset = 0;
+        for (BayType type : BayType.values()) {
+            int count = bayLayout.getCount(type);
+            if (count > 0) {
+                BayGroup group = new BayGroup(type, offset, count);
+                groups.add(group);
+                groupsByType[type.ordinal()] = group;
+                offset += count;
+            }
+        }
+        this.bayGroups = groups.toArray(new BayGroup[0]);
+        this.slotAllocationPolicy = slotAllocationPolicy;
+        int occupied = 0;
+        if (occupiedCounts != null) {
+            for (BayGroup group : bayGroups) {
+                int count = Math.min(Math.max(occupiedCounts[group.getType().ordinal()], 0), group.getCapacity());
+                group.setCount(count);
+                occupied += count;
+            }
+        }
+        this.currentCount = new AtomicInteger(occupied);
+        this.loaded = occupiedCounts == null;
     }
 
     public ParkingTicket park(Car car) {
         if (car == null) {
-            throw new ParkingException("Cannot park null car");
+            throw ParkingException.NULL_CAR;
         }
-        if (isFull()) {
-            throw new ParkingException("No available position.");
+        ParkingTicket ticket = tryPark(car);
+        if (ticket == null) {
+            throw ParkingException.NO_AVAILABLE_POSITION;
         }
-
-        ParkingTicket ticket = new ParkingTicket();
-        parkedCars.put(ticket, car);
-        currentCount++;
         return ticket;
     }
 
     public Car fetch(ParkingTicket ticket) {
-        if (ticket == null) {
-            throw new ParkingException("Unrecognized parking ticket.");
+        Car car = tryFetch(ticket);
+        if (car == null) {
+            throw ParkingException.UNRECOGNIZED_TICKET;
+        }
+        return car;
+    }
+
+    // 不抛异常的停车：车为空或停车场已满时返回 null，失败路径不分配任何对象
+    public ParkingTicket tryPark(Car car) {
+        return tryPark(car, System.nanoTime());
+    }
+
+    private ParkingTicket tryPark(Car car, long parkedAt) {
+        if (car == null || draining) {
+            return null;
+        }
+        ensureLoaded();
+        BayGroup group = reserveFor(car.getBayType());
+        if (group == null) {
+            return null;
         }
-        if (!parkedCars.containsKey(ticket)) {
-            throw new ParkingException("Unrecognized parking ticket.");
+
+        int before = currentCount.getAndIncrement();
+        ParkingTicket ticket = issueTicket(car, group, parkedAt);
+        notifyParked(ticket.getId());
+        notifyAvailableCountChanged(before, before + 1);
+        return ticket;
+    }
+
+    // 不抛异常的取车：小票为空、不是本停车场签发或已经用过时返回 null
+    public Car tryFetch(ParkingTicket ticket) {
+        if (ticket == null) {
+            return null;
         }
 
-        Car car = parkedCars.remove(ticket);
-        currentCount--;
+        ensureLoaded();
+        Car car = release(ticket.getId(), true);
+        if (car != null) {
+            int after = currentCount.decrementAndGet();
+            notifyAvailableCountChanged(after + 1, after);
+        }
         return car;
     }
 
+    // 停车时使用预留：预留仍有效时直接在预留的车位数上分配车位，预留已失效时按普通停车处理
+    public ParkingTicket park(Car car, ParkingHold hold) {
+        if (car == null) {
+            throw ParkingException.NULL_CAR;
+        }
+        ParkingTicket ticket = tryPark(car, hold);
+        if (ticket == null) {
+            throw ParkingException.NO_AVAILABLE_POSITION;
+        }
+        return ticket;
+    }
+
+    public ParkingTicket tryPark(Car car, ParkingHold hold) {
+        return tryPark(car, hold, System.nanoTime());
+    }
+
+    private ParkingTicket tryPark(Car car, ParkingHold hold, long parkedAt) {
+        if (car == null) {
+            return null;
+        }
+        // 预留的车位这辆车停不进去时保留预留，按普通停车处理
+        if (hold == null || hold.getParkingLot() != this
+                || !car.getBayType().accepts(hold.getBayType()) || !hold.redeem()) {
+            return tryPark(car, parkedAt);
+        }
+
+        hold.getBayGroup().removeHold();
+        ParkingTicket ticket = issueTicket(car, hold.getBayGroup(), parkedAt);
+        notifyHoldReleased();
+        notifyParked(ticket.getId());
+        return ticket;
+    }
+
+    // 为在路上的车预留一个标准车位，超时未停车自动释放；停车场已满时抛出异常
+    public ParkingHold hold(long timeout, TimeUnit unit) {
+        return hold(BayType.STANDARD, timeout, unit);
+    }
+
+    public ParkingHold hold(BayType bayType, long timeout, TimeUnit unit) {
+        ParkingHold hold = tryHold(bayType, timeout, unit);
+        if (hold == null) {
+            throw ParkingException.NO_AVAILABLE_POSITION;
+        }
+        return hold;
+    }
+
+    // 不抛异常的预留：停车场已满时返回 null
+    public ParkingHold tryHold(long timeout, TimeUnit unit) {
+        return tryHold(BayType.STANDARD, timeout, unit);
+    }
+
+    // 按车辆需要的车位类型预留，本类车位满时同样可以退到允许的更大车位
+    public ParkingHold tryHold(BayType bayType, long timeout, TimeUnit unit) {
+        if (draining) {
+            return null;
+        }
+        ensureLoaded();
+        BayGroup group = reserveFor(bayType);
+        if (group == null) {
+            return null;
+        }
+
+        group.addHold();
+        int before = currentCount.getAndIncrement();
+        ParkingHold hold = new ParkingHold(this, group, System.nanoTime() + unit.toNanos(timeout));
+        notifyHeld();
+        notifyAvailableCountChanged(before, before + 1);
+        HoldExpiryWheel.SHARED.schedule(hold);
+        return hold;
+    }
+
+    // 批量停车：同类车辆整批在各类车位上一次性预占，按顺序给能停下的车发票，停不下或为空的车对应位置返回 null
+    public List<ParkingTicket> parkAll(List<Car> cars) {
+        if (draining) {
+            return new ArrayList<>(Collections.nCopies(cars.size(), (ParkingTicket) null));
+        }
+        ensureLoaded();
+        int[] requested = new int[BayType.COUNT];
+        for (Car car : cars) {
+            if (car != null) {
+                requested[car.getBayType().ordinal()]++;
+            }
+        }
+
+        // granted[车辆类型][第几个可停车位类型] = 在该类车位上预占到的数量
+        // 按退让层级逐轮预占：各类车辆先占满本类车位，再去抢更大的车位，避免小车挤占大车的车位
+        int[][] granted = new int[BayType.COUNT][];
+        for (BayType type : BayType.values()) {
+            granted[type.ordinal()] = new int[type.fallbacks().length];
+        }
+        int grantedTotal = 0;
+        for (int level = 0; level < BayType.COUNT; level++) {
+            for (BayType type : BayType.values()) {
+                int remaining = requested[type.ordinal()];
+                BayType[] fallbacks = type.fallbacks();
+                if (remaining == 0 || level >= fallbacks.length) {
+                    continue;
+                }
+                BayGroup group = groupsByType[fallbacks[level].ordinal()];
+                int reserved = group == null ? 0 : group.reserve(remaining);
+                granted[type.ordinal()][level] = reserved;
+                requested[type.ordinal()] -= reserved;
+                grantedTotal += reserved;
+            }
+        }
+
+        int before = grantedTotal == 0 ? 0 : currentCount.getAndAdd(grantedTotal);
+        List<ParkingTicket> tickets = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            BayGroup group = car == null ? null : takeGranted(car.getBayType(), granted[car.getBayType().ordinal()]);
+            if (group == null) {
+                tickets.add(null);
+                continue;
+            }
+            ParkingTicket ticket = issueTicket(car, group, System.nanoTime());
+            notifyParked(ticket.getId());
+            tickets.add(ticket);
+        }
+        if (grantedTotal > 0) {
+            notifyAvailableCountChanged(before, before + grantedTotal);
+        }
+        return tickets;
+    }
+
+    // 批量取车：无法识别的小票对应位置返回 null，不抛异常
+    public List<Car> fetchAll(List<ParkingTicket> tickets) {
+        ensureLoaded();
+        List<Car> cars = new ArrayList<>(tickets.size());
+        int released = 0;
+        for (ParkingTicket ticket : tickets) {
+            Car car = ticket == null ? null : release(ticket.getId(), true);
+            if (car != null) {
+                released++;
+            }
+            cars.add(car);
+        }
+        if (released > 0) {
+            int after = currentCount.addAndGet(-released);
+            notifyAvailableCountChanged(after + released, after);
+        }
+        return cars;
+    }
+
+    // 停用：立即停止接收新车和新的预留，已签发的小票照常取车，停用前的预留仍可停入；不可撤销
+    public void drain() {
+        draining = true;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isSlotOccupied(int slot) {
+        ensureLoaded();
+        BayGroup group = groupOfSlot(slot);
+        return group != null && group.isOccupied(slot);
+    }
+
+    public BayLayout getBayLayout() {
+        return bayLayout;
+    }
+
+    // 该类车辆可用的车位数：本类和允许退到的更大车位的空位之和，O(1)
+    public int getAvailableCount(BayType bayType) {
+        int available = 0;
+        for (BayType type : bayType.fallbacks()) {
+            BayGroup group = groupsByType[type.ordinal()];
+            if (group != null) {
+                available += group.getAvailableCount();
+            }
+        }
+        return available;
+    }
+
+    // 该类车辆可以停放的车位总数
+    public int getCapacity(BayType bayType) {
+        int total = 0;
+        for (BayType type : bayType.fallbacks()) {
+            total += bayLayout.getCount(type);
+        }
+        return total;
+    }
+
+    public SlotStorage getSlotStorage() {
+        return slotStorage;
+    }
+
+    public SlotAllocationPolicy getSlotAllocationPolicy() {
+        return slotAllocationPolicy;
+    }
+
     public boolean isFull() {
-        return currentCount >= capacity;
+        return currentCount.get() >= capacity;
     }
     public int getCapacity() {
         return capacity;
     }
 
     public int getAvailableCount() {
-        return capacity - currentCount;
+        return capacity - currentCount.get();
+    }
+
+    // 订阅本停车场的变化事件；不同出入口线程上的事件可能交错到达，订阅者需要时应以停车场的实时状态为准
+    public synchronized void addListener(ParkingLotListener listener) {
+        ParkingLotListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(ParkingLotListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                ParkingLotListener[] updated = new ParkingLotListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    // 预留取消或到期时归还占用的车位数；到期发生在时间轮线程上
+    void releaseHold(BayGroup group) {
+        group.removeHold();
+        group.unreserve(1);
+        int after = currentCount.decrementAndGet();
+        notifyHoldReleased();
+        notifyAvailableCountChanged(after + 1, after);
+    }
+
+    // 按小票编号把车放回原车位，用于从持久化状态恢复；车位已被占用时忽略并返回 false
+    boolean restore(long ticketId, Car car) {
+        // 单调时钟跨进程没有意义，恢复的车从恢复时刻开始计停留时长
+        if (!restoreSlot(ticketId, car, System.nanoTime())) {
+            return false;
+        }
+        currentCount.incrementAndGet();
+        return true;
+    }
+
+    // 挪车第一步：腾出车位并发出取车事件；车只是换个地方停，这次停留没有结束，不发停留结束事件
+    // 返回车和原停入时刻，交给目标停车场的 moveIn 或失败时交回 moveBack；小票无法识别时返回 null
+    MovedCar moveOut(long ticketId) {
+        int slot = ParkingTicket.slotOf(ticketId);
+        if (ParkingTicket.lotIdOf(ticketId) != id || slot >= capacity) {
+            return null;
+        }
+        ensureLoaded();
+        // 小票有效时车位记录在腾出之前不会变，可以先读停入时刻，release 腾车位前会再核对代数
+        long parkedAt = slotStore.parkedAt(slot);
+        Car car = release(ticketId, false);
+        if (car == null) {
+            return null;
+        }
+        int after = currentCount.decrementAndGet();
+        notifyAvailableCountChanged(after + 1, after);
+        return new MovedCar(car, parkedAt);
+    }
+
+    // 挪车第二步：按 tryPark(Car, ParkingHold) 停入本停车场，但沿用原停入时刻，整次停留只在最后取车时结算一次
+    ParkingTicket moveIn(MovedCar moved, ParkingHold hold) {
+        return tryPark(moved.getCar(), hold, moved.parkedAt);
+    }
+
+    // 挪车失败时把车放回本停车场，停用中也放得回去；原车位还空着时回原车位，原小票继续有效，
+    // 已被停用前的预留兑现占用时换一个车位。照常发出停车事件，日志和汇总数据与挪车之前一致
+    // 返回车现在对应的小票，没有空位时返回 null
+    ParkingTicket moveBack(long ticketId, MovedCar moved) {
+        ensureLoaded();
+        ParkingTicket ticket;
+        if (restoreSlot(ticketId, moved.getCar(), moved.parkedAt)) {
+            ticket = new ParkingTicket(ticketId, this, moved.parkedAt);
+        } else {
+            BayGroup group = reserveFor(moved.getCar().getBayType());
+            if (group == null) {
+                return null;
+            }
+            ticket = issueTicket(moved.getCar(), group, moved.parkedAt);
+        }
+        int before = currentCount.getAndIncrement();
+        notifyParked(ticket.getId());
+        notifyAvailableCountChanged(before, before + 1);
+        return ticket;
+    }
+
+    // 把车写回小票对应的车位并占用，不改总数；车位已被占用时返回 false
+    private boolean restoreSlot(long ticketId, Car car, long parkedAt) {
+        int slot = ParkingTicket.slotOf(ticketId);
+        int generation = ParkingTicket.generationOf(ticketId);
+        if (ParkingTicket.lotIdOf(ticketId) != id || slot >= capacity || (generation & 1) == 0) {
+            return false;
+        }
+        ensureLoaded();
+        if (!groupOfSlot(slot).restore(slot)) {
+            return false;
+        }
+        slotStore.store(slot, car, parkedAt);
+        slotStore.storeGeneration(slot, generation);
+        generations.set(slot, generation);
+        return true;
+    }
+
+    // 小票对应的车仍停在车位上时返回这辆车，不取走
+    Car parkedCar(long ticketId) {
+        int slot = ParkingTicket.slotOf(ticketId);
+        if (ParkingTicket.lotIdOf(ticketId) != id || slot >= capacity) {
+            return null;
+        }
+        ensureLoaded();
+        // 与 release 相同，按低位核对代数：车位的代数计数会越过小票里代数的位数
+        int generation = generations.get(slot);
+        if ((generation & 1) == 0 || (generation & ParkingTicket.GENERATION_MASK) != ParkingTicket.generationOf(ticketId)) {
+            return null;
+        }
+        Car car = slotStore.load(slot);
+        // 读车期间车被取走、车位换了车时读到的记录不可信
+        return generations.get(slot) == generation ? car : null;
+    }
+
+    // 从 fromSlot 开始按车位号收集在停车辆的小票编号，最多填满 ticketIds，返回收集到的数量
+    int collectParkedTickets(int fromSlot, long[] ticketIds) {
+        ensureLoaded();
+        int count = 0;
+        for (int slot = fromSlot; slot < capacity && count < ticketIds.length; slot++) {
+            int generation = generations.get(slot);
+            if ((generation & 1) != 0 && isSlotOccupied(slot)) {
+                ticketIds[count++] = ParkingTicket.encode(id, slot, generation);
+            }
+        }
+        return count;
+    }
+
+    // 遍历当前停着车的小票编号，用于生成快照
+    void forEachParkedTicket(LongConsumer action) {
+        ensureLoaded();
+        for (int slot = 0; slot < capacity; slot++) {
+            int generation = generations.get(slot);
+            if ((generation & 1) != 0 && isSlotOccupied(slot)) {
+                action.accept(ParkingTicket.encode(id, slot, generation));
+            }
+        }
+    }
+
+    // 该类车位上实际停着的车数，用于保存计数：不含预留，重启后预留已不存在；不含退到其他类车位的车
+    int getOccupiedCount(BayType bayType) {
+        BayGroup group = groupsByType[bayType.ordinal()];
+        return group == null ? 0 : group.getCapacity() - group.getAvailableCount() - group.getHeldCount();
+    }
+
+    // 第一次停取车时从存储里读出车位代数、重建占用位图，各类车位的计数改为实际的在停车数
+    // 只读写停车场自身的数据：挂接大量停车场时启动不必扫描车位，取车只等它所在的停车场加载完
+    void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        int before;
+        int after;
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            before = currentCount.get();
+            after = 0;
+            for (BayGroup group : bayGroups) {
+                int count = 0;
+                for (int slot = group.getOffset(); slot < group.getOffset() + group.getCapacity(); slot++) {
+                    int generation = slotStore.loadGeneration(slot);
+                    generations.set(slot, generation);
+                    if ((generation & 1) != 0 && group.occupy(slot)) {
+                        count++;
+                    }
+                }
+                group.setCount(count);
+                after += count;
+            }
+            currentCount.set(after);
+            loaded = true;
+        }
+        if (before != after) {
+            notifyRecounted(before, after);
+            notifyAvailableCountChanged(before, after);
+        }
+    }
+
+    private void notifyParked(long ticketId) {
+        for (ParkingLotListener listener : listeners) {
+            listener.onParked(this, ticketId);
+        }
+    }
+
+    // 没有订阅者或停留没有结束时不读时钟
+    private void notifyFetched(long ticketId, Car car, long parkedAt, boolean stayCompleted) {
+        ParkingLotListener[] current = listeners;
+        if (current.length == 0) {
+            return;
+        }
+        long fetchedAt = stayCompleted ? System.nanoTime() : 0;
+        for (ParkingLotListener listener : current) {
+            listener.onFetched(this, ticketId);
+            if (stayCompleted) {
+                listener.onStayCompleted(this, ticketId, parkedAt, fetchedAt);
+                listener.onDeparted(this, ticketId, car);
+            }
+        }
+    }
+
+    private void notifyHeld() {
+        for (ParkingLotListener listener : listeners) {
+            listener.onHeld(this);
+        }
+    }
+
+    private void notifyHoldReleased() {
+        for (ParkingLotListener listener : listeners) {
+            listener.onHoldReleased(this);
+        }
+    }
+
+    private void notifyRecounted(int countBefore, int countAfter) {
+        for (ParkingLotListener listener : listeners) {
+            listener.onRecounted(this, countBefore, countAfter);
+        }
+    }
+
+    // 由完成这次状态跳变的线程发出停满/不再停满事件，每次跳变只发一次
+    private void notifyAvailableCountChanged(int countBefore, int countAfter) {
+        boolean becameFull = countBefore < capacity && countAfter >= capacity;
+        boolean becameNotFull = countBefore >= capacity && countAfter < capacity;
+        for (ParkingLotListener listener : listeners) {
+            listener.onAvailableCountChanged(this);
+            if (becameFull) {
+                listener.onFull(this);
+            } else if (becameNotFull) {
+                listener.onNotFull(this);
+            }
+        }
+    }
+
+    // 按车辆的车位类型依次尝试本类和允许的更大车位，返回预占成功的区段，都满时返回 null
+    private BayGroup reserveFor(BayType bayType) {
+        for (BayType type : bayType.fallbacks()) {
+            BayGroup group = groupsByType[type.ordinal()];
+            if (group != null && group.reserve(1) == 1) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    // 从批量预占的名额里为一辆车取一个车位区段，名额用完时返回 null
+    private BayGroup takeGranted(BayType bayType, int[] granted) {
+        BayType[] fallbacks = bayType.fallbacks();
+        for (int i = 0; i < fallbacks.length; i++) {
+            if (granted[i] > 0) {
+                granted[i]--;
+                return groupsByType[fallbacks[i].ordinal()];
+            }
+        }
+        return null;
+    }
+
+    // 车位号所在区段的车位类型，车位号越界时返回 null
+    BayType getBayTypeOfSlot(int slot) {
+        BayGroup group = groupOfSlot(slot);
+        return group == null ? null : group.getType();
+    }
+
+    private BayGroup groupOfSlot(int slot) {
+        for (BayGroup group : bayGroups) {
+            if (group.contains(slot)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    // 调用前必须已在该区段预占车位，因此一定能认领到空车位
+    private ParkingTicket issueTicket(Car car, BayGroup group, long parkedAt) {
+        int slot = group.claimSlot(slotAllocationPolicy);
+        // 认领到车位后只有本线程会推进它的代数；先写记录和存储里的代数，最后发布，落盘的存储里不会出现有代数没记录的车位
+        int generation = generations.get(slot) + 1;
+        slotStore.store(slot, car, parkedAt);
+        slotStore.storeGeneration(slot, generation);
+        generations.set(slot, generation);
+        return new ParkingTicket(ParkingTicket.encode(id, slot, generation), this, parkedAt);
+    }
+
+    // 核对小票对应车位的代数并腾出车位，无法识别时返回 null；成功时归还区段计数并发出取车事件，调用方负责归还总数
+    // 挪车腾出车位时 stayCompleted 为 false，不发停留结束事件
+    private Car release(long ticketId, boolean stayCompleted) {
+        int slot = ParkingTicket.slotOf(ticketId);
+        if (ParkingTicket.lotIdOf(ticketId) != id || slot >= capacity) {
+            return null;
+        }
+        int generation = generations.get(slot);
+        if ((generation & 1) == 0 || (generation & ParkingTicket.GENERATION_MASK) != ParkingTicket.generationOf(ticketId)) {
+            return null;
+        }
+        // 必须在腾出车位之前读取，之后车位可能立即被下一辆车占用
+        Car car = slotStore.load(slot);
+        long parkedAt = slotStore.parkedAt(slot);
+        if (!generations.compareAndSet(slot, generation, generation + 1)) {
+            return null;
+        }
+        slotStore.storeGeneration(slot, generation + 1);
+        slotStore.clear(slot);
+        // 先发取车事件再腾出车位：下一辆车停进这个车位时，日志等订阅者一定已经先记下了这次取车
+        notifyFetched(ticketId, car, parkedAt, stayCompleted);
+        BayGroup group = groupOfSlot(slot);
+        group.free(slot);
+        group.unreserve(1);
+        return car;
+    }
+
+    // 挪车途中的车和它在原停车场的停入时刻
+    static final class MovedCar {
+        private final Car car;
+        private final long parkedAt;
+
+        private MovedCar(Car car, long parkedAt) {
+            this.car = car;
+            this.parkedAt = parkedAt;
+        }
+
+        Car getCar() {
+            return car;
+        }
+    }
+
+    // 为不经公开构造函数创建的停车场分配编号
+    static int nextId() {
+        return NEXT_ID.incrementAndGet();
+    }
+
+    private static int checkCapacity(int capacity) {
+        if (capacity < 0 || capacity > ParkingTicket.MAX_SLOTS) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        return capacity;
     }
 }
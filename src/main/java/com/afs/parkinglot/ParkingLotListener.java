@@ -0,0 +1,45 @@
+package com.afs.parkinglot;
+
+// 停车场变化事件的订阅接口，用于增量维护全局空位数、已满停车场列表等汇总数据
+// 事件在停车/取车的线程上同步分发，参数都是基本类型或已有对象，分发过程不分配内存；
+// 没有订阅者时只是遍历一个空数组。实现应尽量轻量，耗时的处理请转交给其他线程
+public interface ParkingLotListener {
+    default void onParked(ParkingLot parkingLot, long ticketId) {
+    }
+
+    // 在腾出车位之前发出，同一车位上下一辆车的 onParked 一定在它之后
+    default void onFetched(ParkingLot parkingLot, long ticketId) {
+    }
+
+    // 一次停车结束，紧跟在 onFetched 之后；时刻取自 System.nanoTime()，相减即停留时长
+    default void onStayCompleted(ParkingLot parkingLot, long ticketId, long parkedAtNanos, long fetchedAtNanos) {
+    }
+
+    // 车离场，紧跟在 onStayCompleted 之后，带着取走的车；迁车腾出原车位时车没有离场，不发
+    default void onDeparted(ParkingLot parkingLot, long ticketId, Car car) {
+    }
+
+    // 新增一个预留，预留占用一个车位数
+    default void onHeld(ParkingLot parkingLot) {
+    }
+
+    // 预留结束（取消、到期或车到达停车）并归还车位数；车到达时紧接着会收到 onParked
+    default void onHoldReleased(ParkingLot parkingLot) {
+    }
+
+    // 停车场第一次停取车时加载车位记录，实际在停车数与此前沿用的保存计数不同；
+    // 参数是加载前后的在停车数，按事件累加计数的订阅者据此修正
+    default void onRecounted(ParkingLot parkingLot, int countBefore, int countAfter) {
+    }
+
+    default void onAvailableCountChanged(ParkingLot parkingLot) {
+    }
+
+    // 停车场从有空位变为停满
+    default void onFull(ParkingLot parkingLot) {
+    }
+
+    // 停车场从停满变为有空位
+    default void onNotFull(ParkingLot parkingLot) {
+    }
+}
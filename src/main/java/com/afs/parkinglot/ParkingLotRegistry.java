@@ -0,0 +1,96 @@
+package com.afs.parkinglot;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// 停车小弟管理的停车场名册，写时复制：增删停车场时在锁内生成新的不可变快照再整体发布，
+// 停车、取车路径只读 volatile 快照，不加锁、不分配对象；增删期间停车照常进行，读到的是增删前或增删后的完整名册
+// 停车场编号按创建顺序分配，同一名册里的编号通常挨在一起：按编号查找用编号减最小编号做下标查数组，不装箱
+final class ParkingLotRegistry {
+    private static final Snapshot EMPTY = new Snapshot(new ParkingLot[0]);
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    // 已在名册中时返回 false
+    synchronized boolean add(ParkingLot parkingLot) {
+        Snapshot current = snapshot;
+        if (current.lotOf(parkingLot.getId()) != null) {
+            return false;
+        }
+        ParkingLot[] updated = Arrays.copyOf(current.lots, current.lots.length + 1);
+        updated[current.lots.length] = parkingLot;
+        snapshot = new Snapshot(updated);
+        return true;
+    }
+
+    // 不在名册中时返回 false
+    synchronized boolean remove(ParkingLot parkingLot) {
+        Snapshot current = snapshot;
+        if (!contains(current, parkingLot)) {
+            return false;
+        }
+        ParkingLot[] updated = new ParkingLot[current.lots.length - 1];
+        int next = 0;
+        for (ParkingLot lot : current.lots) {
+            if (lot != parkingLot) {
+                updated[next++] = lot;
+            }
+        }
+        snapshot = new Snapshot(updated);
+        return true;
+    }
+
+    boolean contains(ParkingLot parkingLot) {
+        return parkingLot != null && contains(snapshot, parkingLot);
+    }
+
+    // 按停车场编号查找，不在名册中返回 null
+    ParkingLot get(int lotId) {
+        return snapshot.lotOf(lotId);
+    }
+
+    boolean isEmpty() {
+        return snapshot.lots.length == 0;
+    }
+
+    // 当前名册的只读视图，同一快照内反复调用返回同一个对象
+    List<ParkingLot> asList() {
+        return snapshot.view;
+    }
+
+    private static boolean contains(Snapshot snapshot, ParkingLot parkingLot) {
+        return snapshot.lotOf(parkingLot.getId()) == parkingLot;
+    }
+
+    // 发布后不再修改，可以无锁读取
+    private static final class Snapshot {
+        private final ParkingLot[] lots;
+        private final List<ParkingLot> view;
+        // 下标为停车场编号 - minId，覆盖名册里最小到最大的编号
+        private final ParkingLot[] byId;
+        private final int minId;
+
+        private Snapshot(ParkingLot[] lots) {
+            this.lots = lots;
+            this.view = Collections.unmodifiableList(Arrays.asList(lots));
+            int minId = Integer.MAX_VALUE;
+            int maxId = 0;
+            for (ParkingLot lot : lots) {
+                minId = Math.min(minId, lot.getId());
+                maxId = Math.max(maxId, lot.getId());
+            }
+            this.minId = lots.length == 0 ? 0 : minId;
+            ParkingLot[] byId = new ParkingLot[lots.length == 0 ? 0 : maxId - minId + 1];
+            for (ParkingLot lot : lots) {
+                byId[lot.getId() - this.minId] = lot;
+            }
+            this.byId = byId;
+        }
+
+        private ParkingLot lotOf(int lotId) {
+            int index = lotId - minId;
+            return index >= 0 && index < byId.length ? byId[index] : null;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.afs.parkinglot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// 停车经理：管理多个停车小弟，按登记顺序把车交给第一个还有空位的小弟，由小弟按自己的规则选场
+// 每个小弟的空位汇总由停车场事件增量维护，判断有没有空位不需要逐个询问小弟
+// 小弟很多时用 fork/join 并行查找
+// 手下小弟共用一个车牌索引：同一车牌在经理管理的全部停车场里只能停一辆
+public class ParkingManager {
+    static final int PARALLEL_THRESHOLD = 4096;
+    private static final int NOT_FOUND = -1;
+    private static final ManagedBoy[] NO_BOYS = new ManagedBoy[0];
+
+    private volatile ManagedBoy[] parkingBoys = NO_BOYS;
+    private final Map<ParkingLot, StandardParkingBoy> boyByLot = new ConcurrentHashMap<>();
+    private final PlateIndex plateIndex = new PlateIndex();
+
+    public ParkingManager() {
+    }
+
+    public ParkingManager(List<? extends StandardParkingBoy> parkingBoys) {
+        for (StandardParkingBoy parkingBoy : parkingBoys) {
+            manageParkingBoy(parkingBoy);
+        }
+    }
+
+    // 以小弟当前管理的停车场建立空位汇总，并订阅小弟的名册变化，之后增删的停车场自动计入或移出汇总
+    // 重复调用只会按小弟当前的名册重新核对一遍
+    public synchronized void manageParkingBoy(StandardParkingBoy parkingBoy) {
+        ManagedBoy[] boys = parkingBoys;
+        ManagedBoy managed = null;
+        for (ManagedBoy boy : boys) {
+            if (boy.parkingBoy == parkingBoy) {
+                managed = boy;
+            }
+        }
+        if (managed == null) {
+            managed = new ManagedBoy(parkingBoy);
+            ManagedBoy[] updated = Arrays.copyOf(boys, boys.length + 1);
+            updated[boys.length] = managed;
+            parkingBoys = updated;
+            parkingBoy.usePlateIndex(plateIndex);
+            // 先订阅再核对名册：核对期间增删的停车场要么在名册里，要么随后收到事件；重复计入和移出都是幂等的
+            parkingBoy.addListener(managed);
+        }
+        for (ParkingLot parkingLot : managed.occupancy.getTrackedParkingLots()) {
+            if (!parkingBoy.manages(parkingLot)) {
+                untrack(managed, parkingLot);
+            }
+        }
+        for (ParkingLot parkingLot : parkingBoy.getManagedParkingLots()) {
+            track(managed, parkingLot);
+        }
+    }
+
+    // 汇总中该小弟的空位数，不是本经理管理的小弟返回 0
+    public long getAvailableCount(StandardParkingBoy parkingBoy) {
+        for (ManagedBoy boy : parkingBoys) {
+            if (boy.parkingBoy == parkingBoy) {
+                return boy.occupancy.getAvailableCount();
+            }
+        }
+        return 0;
+    }
+
+    public ParkingTicket park(Car car) {
+        if (parkingBoys.length == 0) {
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
+        }
+        if (car == null) {
+            throw ParkingException.NULL_CAR;
+        }
+
+        ParkingTicket ticket = tryPark(car);
+        if (ticket == null) {
+            throw isParked(car) ? ParkingException.DUPLICATE_CAR : ParkingException.NO_AVAILABLE_POSITION;
+        }
+        return ticket;
+    }
+
+    public Car fetch(ParkingTicket ticket) {
+        if (parkingBoys.length == 0) {
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
+        }
+
+        Car car = tryFetch(ticket);
+        if (car == null) {
+            throw ParkingException.UNRECOGNIZED_TICKET;
+        }
+        return car;
+    }
+
+    // 不抛异常的停车：汇总显示有空位的小弟可能刚被其他出入口停满，从它之后继续找
+    public ParkingTicket tryPark(Car car) {
+        if (car == null) {
+            return null;
+        }
+        ManagedBoy[] boys = parkingBoys;
+        int from = 0;
+        while (from < boys.length) {
+            int found = findBoyWithRoom(boys, from);
+            if (found == NOT_FOUND) {
+                return null;
+            }
+            ParkingTicket ticket = boys[found].parkingBoy.tryPark(car);
+            // 车牌已被占住时换哪个小弟都停不了，不再往后找
+            if (ticket != null || isParked(car)) {
+                return ticket;
+            }
+            from = found + 1;
+        }
+        return null;
+    }
+
+    // 不抛异常的取车：按小票签发的停车场找到管理它的小弟
+    public Car tryFetch(ParkingTicket ticket) {
+        if (ticket == null || ticket.getParkingLot() == null) {
+            return null;
+        }
+        StandardParkingBoy parkingBoy = boyByLot.get(ticket.getParkingLot());
+        return parkingBoy == null ? null : parkingBoy.tryFetch(ticket);
+    }
+
+    private boolean isParked(Car car) {
+        return car.getPlate() != null && plateIndex.contains(car.getPlate());
+    }
+
+    private synchronized void track(ManagedBoy managed, ParkingLot parkingLot) {
+        if (managed.parkingBoy.manages(parkingLot)) {
+            managed.occupancy.track(parkingLot);
+            boyByLot.putIfAbsent(parkingLot, managed.parkingBoy);
+        }
+    }
+
+    private synchronized void untrack(ManagedBoy managed, ParkingLot parkingLot) {
+        managed.occupancy.untrack(parkingLot);
+        boyByLot.remove(parkingLot, managed.parkingBoy);
+    }
+
+    private static int findBoyWithRoom(ManagedBoy[] boys, int from) {
+        if (boys.length - from < PARALLEL_THRESHOLD) {
+            return scan(boys, from, boys.length);
+        }
+        return ForkJoinPool.commonPool().invoke(new FindBoyWithRoom(boys, from, boys.length));
+    }
+
+    private static int scan(ManagedBoy[] boys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (boys[i].occupancy.getAvailableCount() > 0) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // 找区间内第一个有空位的小弟：左右两半并行查找，左半找到时优先取左半
+    private static final class FindBoyWithRoom extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final ManagedBoy[] boys;
+        private final int from;
+        private final int to;
+
+        FindBoyWithRoom(ManagedBoy[] boys, int from, int to) {
+            this.boys = boys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                return scan(boys, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            FindBoyWithRoom right = new FindBoyWithRoom(boys, middle, to);
+            right.fork();
+            int left = new FindBoyWithRoom(boys, from, middle).compute();
+            if (left != NOT_FOUND) {
+                return left;
+            }
+            return right.join();
+        }
+    }
+
+    private final class ManagedBoy implements ParkingBoyListener {
+        private final StandardParkingBoy parkingBoy;
+        private final FleetOccupancy occupancy = new FleetOccupancy();
+
+        ManagedBoy(StandardParkingBoy parkingBoy) {
+            this.parkingBoy = parkingBoy;
+        }
+
+        @Override
+        public void onParkingLotAdded(StandardParkingBoy parkingBoy, ParkingLot parkingLot) {
+            track(this, parkingLot);
+        }
+
+        @Override
+        public void onParkingLotRemoved(StandardParkingBoy parkingBoy, ParkingLot parkingLot) {
+            untrack(this, parkingLot);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.afs.parkinglot;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// 停车、取车热路径上的计数与耗时统计
+// 记录只做 LongAdder 累加，不加锁也不分配；读取时按需汇总，适合常开并定期轮询
+public class ParkingMetrics implements ParkingMetricsMXBean {
+    private final LongAdder parkCalls = new LongAdder();
+    private final LongAdder fetchCalls = new LongAdder();
+    private final LongAdder holdCalls = new LongAdder();
+    private final LongAdder[] rejections = new LongAdder[ParkingRejection.values().length];
+    private final LatencyHistogram parkLatency = new LatencyHistogram();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+    // 批量停取车按整批计一次耗时，每辆车仍计一次调用
+    private final LatencyHistogram parkBatchLatency = new LatencyHistogram();
+    private final LatencyHistogram fetchBatchLatency = new LatencyHistogram();
+    private final LatencyHistogram lotsScanned = new LatencyHistogram();
+    private final List<ParkingLot> trackedLots = new CopyOnWriteArrayList<>();
+
+    public ParkingMetrics() {
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    // rejection 为 null 表示停车成功
+    public void recordPark(long nanos, ParkingRejection rejection) {
+        parkCalls.increment();
+        parkLatency.record(nanos);
+        if (rejection != null) {
+            rejections[rejection.ordinal()].increment();
+        }
+    }
+
+    // rejection 为 null 表示取车成功
+    public void recordFetch(long nanos, ParkingRejection rejection) {
+        fetchCalls.increment();
+        fetchLatency.record(nanos);
+        if (rejection != null) {
+            rejections[rejection.ordinal()].increment();
+        }
+    }
+
+    // rejection 为 null 表示预留成功
+    public void recordHold(long nanos, ParkingRejection rejection) {
+        holdCalls.increment();
+        holdLatency.record(nanos);
+        if (rejection != null) {
+            rejections[rejection.ordinal()].increment();
+        }
+    }
+
+    // 一次批量停车：cars 辆车各计一次停车调用，整批耗时记一次；停不下的车由 recordRejections 按原因计数
+    public void recordParkBatch(long nanos, int cars) {
+        parkCalls.add(cars);
+        parkBatchLatency.record(nanos);
+    }
+
+    // 一次批量取车：tickets 张小票各计一次取车调用，整批耗时记一次
+    public void recordFetchBatch(long nanos, int tickets) {
+        fetchCalls.add(tickets);
+        fetchBatchLatency.record(nanos);
+    }
+
+    public void recordRejections(ParkingRejection rejection, int count) {
+        if (count > 0) {
+            rejections[rejection.ordinal()].add(count);
+        }
+    }
+
+    // 一次选场过程中检查过的停车场数量
+    public void recordLotsScanned(int count) {
+        lotsScanned.record(count);
+    }
+
+    // 纳入占用情况统计的停车场
+    public void track(ParkingLot parkingLot) {
+        if (!trackedLots.contains(parkingLot)) {
+            trackedLots.add(parkingLot);
+        }
+    }
+
+    public void untrack(ParkingLot parkingLot) {
+        trackedLots.remove(parkingLot);
+    }
+
+    public ParkingMetricsSnapshot snapshot() {
+        Map<ParkingRejection, Long> rejectionCounts = new LinkedHashMap<>();
+        for (ParkingRejection rejection : ParkingRejection.values()) {
+            rejectionCounts.put(rejection, getRejections(rejection));
+        }
+        return new ParkingMetricsSnapshot(
+                getParkCalls(),
+                getFetchCalls(),
+                getHoldCalls(),
+                rejectionCounts,
+                parkLatency.percentile(0.5),
+                parkLatency.percentile(0.99),
+                parkLatency.percentile(0.999),
+                fetchLatency.percentile(0.5),
+                fetchLatency.percentile(0.99),
+                fetchLatency.percentile(0.999),
+                holdLatency.percentile(0.5),
+                holdLatency.percentile(0.99),
+                parkBatchLatency.percentile(0.5),
+                parkBatchLatency.percentile(0.99),
+                fetchBatchLatency.percentile(0.5),
+                fetchBatchLatency.percentile(0.99),
+                lotsScanned.mean(),
+                lotsScanned.percentile(0.99),
+                getOccupancyByLot());
+    }
+
+    // 以 com.afs.parkinglot:type=ParkingMetrics,name=<name> 注册到平台 MBeanServer
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.afs.parkinglot:type=ParkingMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register parking metrics " + name, e);
+        }
+    }
+
+    public long getRejections(ParkingRejection rejection) {
+        return rejections[rejection.ordinal()].sum();
+    }
+
+    @Override
+    public long getParkCalls() {
+        return parkCalls.sum();
+    }
+
+    @Override
+    public long getFetchCalls() {
+        return fetchCalls.sum();
+    }
+
+    @Override
+    public long getHoldCalls() {
+        return holdCalls.sum();
+    }
+
+    @Override
+    public long getRejectedNullCar() {
+        return getRejections(ParkingRejection.NULL_CAR);
+    }
+
+    @Override
+    public long getRejectedNoAvailablePosition() {
+        return getRejections(ParkingRejection.NO_AVAILABLE_POSITION);
+    }
+
+    @Override
+    public long getRejectedUnrecognizedTicket() {
+        return getRejections(ParkingRejection.UNRECOGNIZED_TICKET);
+    }
+
+    @Override
+    public long getRejectedNoParkingLotManaged() {
+        return getRejections(ParkingRejection.NO_PARKING_LOT_MANAGED);
+    }
+
+    @Override
+    public long getRejectedDuplicateCar() {
+        return getRejections(ParkingRejection.DUPLICATE_CAR);
+    }
+
+    @Override
+    public long getParkLatencyP50Nanos() {
+        return parkLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getParkLatencyP99Nanos() {
+        return parkLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getParkLatencyP999Nanos() {
+        return parkLatency.percentile(0.999);
+    }
+
+    @Override
+    public long getFetchLatencyP50Nanos() {
+        return fetchLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getFetchLatencyP99Nanos() {
+        return fetchLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getFetchLatencyP999Nanos() {
+        return fetchLatency.percentile(0.999);
+    }
+
+    @Override
+    public long getHoldLatencyP50Nanos() {
+        return holdLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getHoldLatencyP99Nanos() {
+        return holdLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getParkBatchLatencyP50Nanos() {
+        return parkBatchLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getParkBatchLatencyP99Nanos() {
+        return parkBatchLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getFetchBatchLatencyP50Nanos() {
+        return fetchBatchLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getFetchBatchLatencyP99Nanos() {
+        return fetchBatchLatency.percentile(0.99);
+    }
+
+    @Override
+    public double getMeanLotsScanned() {
+        return lotsScanned.mean();
+    }
+
+    @Override
+    public long getLotsScannedP99() {
+        return lotsScanned.percentile(0.99);
+    }
+
+    @Override
+    public Map<Integer, Integer> getOccupancyByLot() {
+        Map<Integer, Integer> occupancy = new LinkedHashMap<>();
+        for (ParkingLot parkingLot : trackedLots) {
+            occupancy.put(parkingLot.getId(), parkingLot.getCapacity() - parkingLot.getAvailableCount());
+        }
+        return Collections.unmodifiableMap(occupancy);
+    }
+}
@@ -0,0 +1,53 @@
+package com.afs.parkinglot;
+
+import java.util.Map;
+
+public interface ParkingMetricsMXBean {
+    long getParkCalls();
+
+    long getFetchCalls();
+
+    long getHoldCalls();
+
+    long getRejectedNullCar();
+
+    long getRejectedNoAvailablePosition();
+
+    long getRejectedUnrecognizedTicket();
+
+    long getRejectedNoParkingLotManaged();
+
+    long getRejectedDuplicateCar();
+
+    long getParkLatencyP50Nanos();
+
+    long getParkLatencyP99Nanos();
+
+    long getParkLatencyP999Nanos();
+
+    long getFetchLatencyP50Nanos();
+
+    long getFetchLatencyP99Nanos();
+
+    long getFetchLatencyP999Nanos();
+
+    long getHoldLatencyP50Nanos();
+
+    long getHoldLatencyP99Nanos();
+
+    // 批量停取车每批的耗时
+    long getParkBatchLatencyP50Nanos();
+
+    long getParkBatchLatencyP99Nanos();
+
+    long getFetchBatchLatencyP50Nanos();
+
+    long getFetchBatchLatencyP99Nanos();
+
+    double getMeanLotsScanned();
+
+    long getLotsScannedP99();
+
+    // 停车场编号 -> 已停车数
+    Map<Integer, Integer> getOccupancyByLot();
+}
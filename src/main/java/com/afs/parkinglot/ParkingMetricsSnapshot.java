@@ -0,0 +1,132 @@
+package com.afs.parkinglot;
+
+import java.util.Collections;
+import java.util.Map;
+
+// ParkingMetrics 某一时刻的只读快照，耗时单位为纳秒
+// 各项分别读取，彼此之间不保证是同一瞬间的值
+public final class ParkingMetricsSnapshot {
+    private final long parkCalls;
+    private final long fetchCalls;
+    private final long holdCalls;
+    private final Map<ParkingRejection, Long> rejections;
+    private final long parkLatencyP50;
+    private final long parkLatencyP99;
+    private final long parkLatencyP999;
+    private final long fetchLatencyP50;
+    private final long fetchLatencyP99;
+    private final long fetchLatencyP999;
+    private final long holdLatencyP50;
+    private final long holdLatencyP99;
+    private final long parkBatchLatencyP50;
+    private final long parkBatchLatencyP99;
+    private final long fetchBatchLatencyP50;
+    private final long fetchBatchLatencyP99;
+    private final double meanLotsScanned;
+    private final long lotsScannedP99;
+    private final Map<Integer, Integer> occupancyByLot;
+
+    ParkingMetricsSnapshot(long parkCalls, long fetchCalls, long holdCalls, Map<ParkingRejection, Long> rejections,
+                           long parkLatencyP50, long parkLatencyP99, long parkLatencyP999,
+                           long fetchLatencyP50, long fetchLatencyP99, long fetchLatencyP999,
+                           long holdLatencyP50, long holdLatencyP99,
+                           long parkBatchLatencyP50, long parkBatchLatencyP99,
+                           long fetchBatchLatencyP50, long fetchBatchLatencyP99,
+                           double meanLotsScanned, long lotsScannedP99, Map<Integer, Integer> occupancyByLot) {
+        this.parkCalls = parkCalls;
+        this.fetchCalls = fetchCalls;
+        this.holdCalls = holdCalls;
+        this.rejections = Collections.unmodifiableMap(rejections);
+        this.parkLatencyP50 = parkLatencyP50;
+        this.parkLatencyP99 = parkLatencyP99;
+        this.parkLatencyP999 = parkLatencyP999;
+        this.fetchLatencyP50 = fetchLatencyP50;
+        this.fetchLatencyP99 = fetchLatencyP99;
+        this.fetchLatencyP999 = fetchLatencyP999;
+        this.holdLatencyP50 = holdLatencyP50;
+        this.holdLatencyP99 = holdLatencyP99;
+        this.parkBatchLatencyP50 = parkBatchLatencyP50;
+        this.parkBatchLatencyP99 = parkBatchLatencyP99;
+        this.fetchBatchLatencyP50 = fetchBatchLatencyP50;
+        this.fetchBatchLatencyP99 = fetchBatchLatencyP99;
+        this.meanLotsScanned = meanLotsScanned;
+        this.lotsScannedP99 = lotsScannedP99;
+        this.occupancyByLot = occupancyByLot;
+    }
+
+    public long getParkCalls() {
+        return parkCalls;
+    }
+
+    public long getFetchCalls() {
+        return fetchCalls;
+    }
+
+    public long getHoldCalls() {
+        return holdCalls;
+    }
+
+    public long getRejections(ParkingRejection rejection) {
+        return rejections.get(rejection);
+    }
+
+    public long getParkLatencyP50() {
+        return parkLatencyP50;
+    }
+
+    public long getParkLatencyP99() {
+        return parkLatencyP99;
+    }
+
+    public long getParkLatencyP999() {
+        return parkLatencyP999;
+    }
+
+    public long getFetchLatencyP50() {
+        return fetchLatencyP50;
+    }
+
+    public long getFetchLatencyP99() {
+        return fetchLatencyP99;
+    }
+
+    public long getFetchLatencyP999() {
+        return fetchLatencyP999;
+    }
+
+    public long getHoldLatencyP50() {
+        return holdLatencyP50;
+    }
+
+    public long getHoldLatencyP99() {
+        return holdLatencyP99;
+    }
+
+    public long getParkBatchLatencyP50() {
+        return parkBatchLatencyP50;
+    }
+
+    public long getParkBatchLatencyP99() {
+        return parkBatchLatencyP99;
+    }
+
+    public long getFetchBatchLatencyP50() {
+        return fetchBatchLatencyP50;
+    }
+
+    public long getFetchBatchLatencyP99() {
+        return fetchBatchLatencyP99;
+    }
+
+    public double getMeanLotsScanned() {
+        return meanLotsScanned;
+    }
+
+    public long getLotsScannedP99() {
+        return lotsScannedP99;
+    }
+
+    public Map<Integer, Integer> getOccupancyByLot() {
+        return occupancyByLot;
+    }
+}
@@ -0,0 +1,24 @@
+package com.afs.parkinglot;
+
+// 停车、取车被拒绝的原因，与抛出的 ParkingException 一一对应
+public enum ParkingRejection {
+    NULL_CAR(ParkingException.NULL_CAR),
+    NO_AVAILABLE_POSITION(ParkingException.NO_AVAILABLE_POSITION),
+    UNRECOGNIZED_TICKET(ParkingException.UNRECOGNIZED_TICKET),
+    NO_PARKING_LOT_MANAGED(ParkingException.NO_PARKING_LOT_MANAGED),
+    DUPLICATE_CAR(ParkingException.DUPLICATE_CAR);
+
+    private final ParkingException exception;
+
+    ParkingRejection(ParkingException exception) {
+        this.exception = exception;
+    }
+
+    public String getMessage() {
+        return exception.getMessage();
+    }
+
+    ParkingException exception() {
+        return exception;
+    }
+}
@@ -0,0 +1,9 @@
+package com.afs.parkinglot;
+
+// 分片注册中心中的一个节点：管理一部分停车场，按自己的选场规则停车
+// 节点可以在本进程内，也可以是远端节点的代理；两个方法都不抛异常，失败返回 null
+public interface ParkingShard {
+    ParkingTicket tryPark(Car car);
+
+    Car tryFetch(ParkingTicket ticket);
+}
@@ -0,0 +1,53 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.TimeUnit;
+
+// 停车小弟的选场策略。策略可以缓存当前最优的停车场，只在它依赖的停车场空位变化时失效，
+// 稳态下 select() 应为 O(1)。策略带有状态，每个停车小弟使用各自的实例
+public interface ParkingStrategy {
+    // 停车小弟开始管理一个停车场时调用，登记顺序即同分时的优先顺序
+    void register(ParkingLot parkingLot);
+
+    // 停车小弟不再管理该停车场时调用，之后 select() 不应再返回它
+    // 默认不处理：停车小弟会丢弃选中的已移除停车场，但策略可能因此一直选中它而停不进车
+    default void unregister(ParkingLot parkingLot) {
+    }
+
+    // 选出下一辆车要停的停车场，全部停满时返回 null
+    ParkingLot select();
+
+    // 按车辆需要的车位类型选场，只考虑该类车辆可用的车位（含允许退到的更大车位）
+    // 默认按整体空位选，只适用于所有停车场都只有标准车位的情形；内置策略都按类型分别评估
+    default ParkingLot select(BayType bayType) {
+        return select();
+    }
+
+    // 批量停车时一次交给选中停车场的车辆数；默认全部交给它，停不下的再找下一个停车场
+    default int batchShare(ParkingLot parkingLot, int remaining) {
+        return remaining;
+    }
+
+    // 停车小弟把自己的统计交给策略，策略在 select() 中记录检查过的停车场数量
+    default void bindMetrics(ParkingMetrics metrics) {
+    }
+
+    // 按登记顺序选第一个有空位的停车场
+    static ParkingStrategy firstAvailable() {
+        return new FirstAvailableStrategy();
+    }
+
+    // 选空位最多的停车场
+    static ParkingStrategy mostAvailable() {
+        return new RankedParkingStrategy((parkingLot, availableCount, capacity) -> availableCount);
+    }
+
+    // 选空置率最高的停车场
+    static ParkingStrategy highestVacancyRate() {
+        return new RankedParkingStrategy((parkingLot, availableCount, capacity) -> RankedParkingStrategy.vacancyRate(availableCount, capacity));
+    }
+
+    // 选 horizon 之后预测空位最多的停车场，登记的停车场会自动交给 forecaster 跟踪
+    static ParkingStrategy mostPredictedAvailable(OccupancyForecaster forecaster, long horizon, TimeUnit unit) {
+        return new ForecastParkingStrategy(forecaster, unit.toNanos(horizon));
+    }
+}
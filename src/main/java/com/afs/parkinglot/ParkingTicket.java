@@ -3,5 +3,100 @@ package com.afs.parkinglot;
 import java.util.Objects;
 
 public class ParkingTicket {
+    // 小票编号布局：高 20 位停车场编号 | 中 20 位车位号 | 低 24 位车位代数
+    // 车位每停一次车、取一次车代数各加一，旧小票因此自动失效
+    // 代数只保留低 24 位：同一车位再停 2^23（8388608）次车后代数回绕，一张一直没用的旧小票才会和新车的小票相同
+    static final int MAX_LOT_ID = (1 << 20) - 1;
+    static final int MAX_SLOTS = 1 << 20;
+    static final int GENERATION_MASK = (1 << 24) - 1;
+    // 未经分片注册中心签发的小票没有分片
+    static final int NO_SHARD = -1;
+    private static final int SLOT_SHIFT = 24;
+    private static final int LOT_SHIFT = 44;
 
+    private final long id;
+    // 签发该小票的停车场，取车时直接路由过去，无需遍历所有停车场
+    private final ParkingLot parkingLot;
+    // 签发该小票的分片，分片注册中心据此把取车直接路由到所属节点
+    private final int shard;
+    // 签发时刻，取自 System.nanoTime()，只能与同一进程内的其他时刻相减
+    private final long issuedAtNanos;
+
+    public ParkingTicket() {
+        this(0L, null);
+    }
+
+    ParkingTicket(long id, ParkingLot parkingLot) {
+        this(id, parkingLot, 0L);
+    }
+
+    ParkingTicket(long id, ParkingLot parkingLot, long issuedAtNanos) {
+        this(id, parkingLot, NO_SHARD, issuedAtNanos);
+    }
+
+    private ParkingTicket(long id, ParkingLot parkingLot, int shard, long issuedAtNanos) {
+        this.id = id;
+        this.parkingLot = parkingLot;
+        this.shard = shard;
+        this.issuedAtNanos = issuedAtNanos;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // 分配给这辆车的车位号，未由停车场签发的小票返回 -1
+    public int getSlotNumber() {
+        return id == 0 ? -1 : slotOf(id);
+    }
+
+    // 签发该小票的分片编号，未经分片注册中心签发时返回 -1
+    public int getShard() {
+        return shard;
+    }
+
+    public long getIssuedAtNanos() {
+        return issuedAtNanos;
+    }
+
+    ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    ParkingTicket withShard(int shard) {
+        return new ParkingTicket(id, parkingLot, shard, issuedAtNanos);
+    }
+
+    static long encode(int lotId, int slot, int generation) {
+        return ((long) lotId << LOT_SHIFT) | ((long) slot << SLOT_SHIFT) | (generation & GENERATION_MASK);
+    }
+
+    static int lotIdOf(long id) {
+        return (int) (id >>> LOT_SHIFT);
+    }
+
+    static int slotOf(long id) {
+        return (int) (id >>> SLOT_SHIFT) & (MAX_SLOTS - 1);
+    }
+
+    static int generationOf(long id) {
+        return (int) id & GENERATION_MASK;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ParkingTicket)) {
+            return false;
+        }
+        ParkingTicket that = (ParkingTicket) o;
+        return id != 0 && id == that.id && shard == that.shard;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, shard);
+    }
 }
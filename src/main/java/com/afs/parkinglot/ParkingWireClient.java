@@ -0,0 +1,194 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+// 线路协议的阻塞式客户端，供测试和压测使用；非线程安全，每个线程各用一个连接
+// 失败时抛出与停车小弟相同的 ParkingException
+public class ParkingWireClient implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // 流水线上未收到响应的请求上限，保证请求和响应都放得进双方的套接字缓冲区，不会互相阻塞
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private int nextRequestId;
+    private byte responseOp;
+    private byte responseStatus;
+    private long responsePayload;
+
+    private ParkingWireClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip();
+    }
+
+    public static ParkingWireClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new ParkingWireClient(channel);
+    }
+
+    public long park() throws IOException {
+        return park(null);
+    }
+
+    // 返回小票编号
+    public long park(String plate) throws IOException {
+        return park(plate, BayType.STANDARD);
+    }
+
+    public long park(String plate, BayType bayType) throws IOException {
+        byte[] bytes = plate == null ? new byte[0] : plate.getBytes(StandardCharsets.UTF_8);
+        writeHeader(WireProtocol.PARK, WireProtocol.bayTypeCode(bayType), bytes.length, 0);
+        out.put(bytes);
+        flush();
+        return readResponse(WireProtocol.PARK);
+    }
+
+    public void fetch(long ticketId) throws IOException {
+        writeHeader(WireProtocol.FETCH, 0, ticketId);
+        flush();
+        readResponse(WireProtocol.FETCH);
+    }
+
+    // 连续发出 count 个停车请求，不逐个等待响应，按顺序返回小票编号；停不下的位置为 0
+    public long[] parkPipelined(int count) throws IOException {
+        long[] ticketIds = new long[count];
+        int sent = 0;
+        for (int received = 0; received < count; received++) {
+            while (sent < count && sent - received < MAX_IN_FLIGHT) {
+                writeHeader(WireProtocol.PARK, 0, 0);
+                sent++;
+            }
+            flush();
+            readHeader();
+            ticketIds[received] = responseStatus == WireProtocol.OK ? responsePayload : 0;
+        }
+        return ticketIds;
+    }
+
+    // 连续发出所有取车请求，不逐个等待响应；返回取到的车辆数
+    public int fetchPipelined(long[] ticketIds) throws IOException {
+        int sent = 0;
+        int fetched = 0;
+        for (int received = 0; received < ticketIds.length; received++) {
+            while (sent < ticketIds.length && sent - received < MAX_IN_FLIGHT) {
+                writeHeader(WireProtocol.FETCH, 0, ticketIds[sent]);
+                sent++;
+            }
+            flush();
+            readHeader();
+            if (responseStatus == WireProtocol.OK) {
+                fetched++;
+            }
+        }
+        return fetched;
+    }
+
+    // 批量停车，停不下的位置为 0
+    public long[] parkAll(int count) throws IOException {
+        checkBatch(count);
+        writeHeader(WireProtocol.PARK_BATCH, count, 0);
+        flush();
+        return readBatch(WireProtocol.PARK_BATCH, count);
+    }
+
+    // 批量取车，取到的位置为 1，未取到为 0
+    public long[] fetchAll(long[] ticketIds) throws IOException {
+        checkBatch(ticketIds.length);
+        writeHeader(WireProtocol.FETCH_BATCH, ticketIds.length, 0);
+        for (long ticketId : ticketIds) {
+            out.putLong(ticketId);
+        }
+        flush();
+        return readBatch(WireProtocol.FETCH_BATCH, ticketIds.length);
+    }
+
+    // 所有停车场的空位数之和，超过 Integer.MAX_VALUE 时返回 Integer.MAX_VALUE
+    public int getAvailableCount() throws IOException {
+        writeHeader(WireProtocol.STATUS, 0, 0);
+        flush();
+        return WireProtocol.availableOf(readResponse(WireProtocol.STATUS));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void checkBatch(int count) {
+        if (count > WireProtocol.MAX_BATCH) {
+            throw new IllegalArgumentException("Batch too large: " + count);
+        }
+    }
+
+    private void writeHeader(byte op, int count, long payload) {
+        writeHeader(op, (byte) 0, count, payload);
+    }
+
+    private void writeHeader(byte op, byte bayType, int count, long payload) {
+        out.putInt(nextRequestId++);
+        out.put(op);
+        out.put(bayType);
+        out.putShort((short) count);
+        out.putLong(payload);
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private long readResponse(byte op) throws IOException {
+        readHeader();
+        ParkingRejection rejection = WireProtocol.rejectionOf(responseStatus);
+        if (rejection != null) {
+            throw rejection.exception();
+        }
+        if (responseOp != op) {
+            throw new IOException("Unexpected response op " + responseOp);
+        }
+        return responsePayload;
+    }
+
+    private long[] readBatch(byte op, int count) throws IOException {
+        readResponse(op);
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            ensure(Long.BYTES);
+            values[i] = in.getLong();
+        }
+        return values;
+    }
+
+    private void readHeader() throws IOException {
+        ensure(WireProtocol.HEADER_BYTES);
+        int start = in.position();
+        responseOp = in.get(start + WireProtocol.OP_OFFSET);
+        responseStatus = in.get(start + WireProtocol.STATUS_OFFSET);
+        responsePayload = in.getLong(start + WireProtocol.PAYLOAD_OFFSET);
+        in.position(start + WireProtocol.HEADER_BYTES);
+    }
+
+    // 读缓冲区保持读模式，不足 bytes 个未解析字节时再从连接读，一次读入尽可能多的响应
+    private void ensure(int bytes) throws IOException {
+        while (in.remaining() < bytes) {
+            in.compact();
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+    }
+}
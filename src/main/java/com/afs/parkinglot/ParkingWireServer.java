@@ -0,0 +1,265 @@
+package com.afs.parkinglot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+// 线路协议服务端：单个 selector 线程处理所有连接，每个连接一对直接内存缓冲区
+// 读到多少完整请求就连续处理多少，响应累积在写缓冲区里一次写出（流水线）；
+// 写缓冲区放不下时暂停解析，等客户端读走响应后再继续，不会无限堆积
+// 停车、取车本身是无锁、非阻塞的，直接在 selector 线程上执行
+public class ParkingWireServer implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final StandardParkingBoy parkingBoy;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    private ParkingWireServer(StandardParkingBoy parkingBoy, InetSocketAddress address) throws IOException {
+        this.parkingBoy = parkingBoy;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.worker = new Thread(this::run, "parking-wire-server");
+        worker.setDaemon(true);
+    }
+
+    // 绑定地址并开始服务；端口为 0 时由系统分配，可通过 getLocalAddress() 查询
+    public static ParkingWireServer open(StandardParkingBoy parkingBoy, InetSocketAddress address) throws IOException {
+        ParkingWireServer server = new ParkingWireServer(parkingBoy, address);
+        server.worker.start();
+        return server;
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                return;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        serve(key);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // 单个连接出错（包括协议错误）只断开这个连接
+                    closeQuietly(key);
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (key.isReadable() && channel.read(connection.in) < 0) {
+            closeQuietly(key);
+            return;
+        }
+        // 先处理已读到的请求；因写缓冲区满而停下、且响应全部写出时，继续处理剩下的请求
+        while (true) {
+            boolean blocked = process(connection);
+            connection.out.flip();
+            channel.write(connection.out);
+            boolean drained = !connection.out.hasRemaining();
+            connection.out.compact();
+            if (!blocked || !drained) {
+                break;
+            }
+        }
+        key.interestOps(connection.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    // 解析并处理读缓冲区里所有完整的请求，返回是否因为写缓冲区不够而提前停下
+    private boolean process(Connection connection) {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        boolean blocked = false;
+        while (in.remaining() >= WireProtocol.HEADER_BYTES) {
+            int start = in.position();
+            byte op = in.get(start + WireProtocol.OP_OFFSET);
+            int count = in.getShort(start + WireProtocol.COUNT_OFFSET) & 0xFFFF;
+            int bodyBytes = WireProtocol.requestBodyBytes(op, count);
+            if (bodyBytes < 0 || count > WireProtocol.MAX_BATCH) {
+                throw new IllegalStateException("Malformed request, op " + op + ", count " + count);
+            }
+            if (in.remaining() < WireProtocol.HEADER_BYTES + bodyBytes) {
+                break;
+            }
+            if (out.remaining() < WireProtocol.HEADER_BYTES + WireProtocol.responseBodyBytes(op, count)) {
+                blocked = true;
+                break;
+            }
+            handle(in, start, op, count, out);
+            in.position(start + WireProtocol.HEADER_BYTES + bodyBytes);
+        }
+        in.compact();
+        return blocked;
+    }
+
+    private void handle(ByteBuffer in, int start, byte op, int count, ByteBuffer out) {
+        int requestId = in.getInt(start + WireProtocol.REQUEST_ID_OFFSET);
+        long payload = in.getLong(start + WireProtocol.PAYLOAD_OFFSET);
+        int body = start + WireProtocol.HEADER_BYTES;
+        switch (op) {
+            case WireProtocol.PARK: {
+                BayType bayType = WireProtocol.bayTypeOf(in.get(start + WireProtocol.BAY_TYPE_OFFSET));
+                if (bayType == null) {
+                    throw new IllegalStateException("Malformed request, bay type " + in.get(start + WireProtocol.BAY_TYPE_OFFSET));
+                }
+                Car car = new Car(count == 0 ? null : plateOf(in, body, count), bayType);
+                ParkingTicket ticket = parkingBoy.tryPark(car);
+                writeHeader(out, requestId, op, ticket == null ? parkingBoy.parkRejection(car) : null, 0,
+                        ticket == null ? 0 : ticket.getId());
+                break;
+            }
+            case WireProtocol.FETCH: {
+                Car car = parkingBoy.tryFetch(parkingBoy.ticketOf(payload));
+                writeHeader(out, requestId, op, car == null ? parkingBoy.fetchRejection() : null, 0, 0);
+                break;
+            }
+            case WireProtocol.PARK_BATCH: {
+                List<ParkingTicket> tickets;
+                try {
+                    tickets = count == 0 ? Collections.<ParkingTicket>emptyList() : parkingBoy.parkAll(newCars(count));
+                } catch (ParkingException e) {
+                    writeBatchRejection(out, requestId, op, e);
+                    break;
+                }
+                writeHeader(out, requestId, op, null, count, 0);
+                for (ParkingTicket ticket : tickets) {
+                    out.putLong(ticket == null ? 0 : ticket.getId());
+                }
+                break;
+            }
+            case WireProtocol.FETCH_BATCH: {
+                List<ParkingTicket> tickets = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    tickets.add(parkingBoy.ticketOf(in.getLong(body + i * Long.BYTES)));
+                }
+                List<Car> cars;
+                try {
+                    cars = count == 0 ? Collections.<Car>emptyList() : parkingBoy.fetchAll(tickets);
+                } catch (ParkingException e) {
+                    writeBatchRejection(out, requestId, op, e);
+                    break;
+                }
+                writeHeader(out, requestId, op, null, count, 0);
+                for (Car car : cars) {
+                    out.putLong(car == null ? 0 : 1);
+                }
+                break;
+            }
+            case WireProtocol.STATUS: {
+                long available = 0;
+                long capacity = 0;
+                for (ParkingLot parkingLot : parkingBoy.getManagedParkingLots()) {
+                    available += parkingLot.getAvailableCount();
+                    capacity += parkingLot.getCapacity();
+                }
+                writeHeader(out, requestId, op, null, 0, WireProtocol.statusPayload(available, capacity));
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown op " + op);
+        }
+    }
+
+    private static String plateOf(ByteBuffer in, int offset, int length) {
+        byte[] plate = new byte[length];
+        for (int i = 0; i < length; i++) {
+            plate[i] = in.get(offset + i);
+        }
+        return new String(plate, StandardCharsets.UTF_8);
+    }
+
+    private static List<Car> newCars(int count) {
+        List<Car> cars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cars.add(new Car());
+        }
+        return cars;
+    }
+
+    private static void writeHeader(ByteBuffer out, int requestId, byte op, ParkingRejection rejection, int count, long payload) {
+        out.putInt(requestId);
+        out.put(op);
+        out.put(WireProtocol.statusOf(rejection));
+        out.putShort((short) count);
+        out.putLong(payload);
+    }
+
+    // 整批被拒绝（停车小弟没有管理任何停车场）时只回带拒绝状态的响应头，不跟数据，连接继续可用
+    private static void writeBatchRejection(ByteBuffer out, int requestId, byte op, ParkingException exception) {
+        if (exception != ParkingException.NO_PARKING_LOT_MANAGED) {
+            throw exception;
+        }
+        writeHeader(out, requestId, op, ParkingRejection.NO_PARKING_LOT_MANAGED, 0, 0);
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // 连接已经不可用，关闭失败也无需处理
+        }
+    }
+
+    private static final class Connection {
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+}
@@ -0,0 +1,111 @@
+package com.afs.parkinglot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 车牌索引：车牌 -> 在停车辆的小票，用于拒绝重复停车和按车牌找车
+// 由停车场的停车、离场事件维护：无论经哪个小弟停取、直接向停车场停取还是迁车，索引都跟着停车场的实际状态走
+// 一个索引可以由多个小弟共用（ParkingManager 手下的小弟共用一个），同一车牌在这些小弟的停车场里只能停一辆
+// 开始跟踪时停车场里已经停着的车在第一次按车牌查询时才补进索引，挂接状态文件时不必立即加载车位记录
+final class PlateIndex implements ParkingLotListener {
+    // 车牌已被占住、车还在停车途中时的占位值
+    private static final ParkingTicket CLAIMED = new ParkingTicket();
+
+    private final Map<String, ParkingTicket> ticketsByPlate = new ConcurrentHashMap<>();
+    // 同一停车场可能由共用索引的几个小弟同时管理，全部不再管理时才停止跟踪；由 this 保护
+    private final Map<ParkingLot, Integer> trackCounts = new HashMap<>();
+    private final Set<ParkingLot> unindexedLots = ConcurrentHashMap.newKeySet();
+
+    synchronized void track(ParkingLot parkingLot) {
+        if (trackCounts.merge(parkingLot, 1, Integer::sum) == 1) {
+            // 先订阅再登记待补的停车场：补索引时读到的是订阅之后的实际状态，之后的变化由事件维护
+            parkingLot.addListener(this);
+            unindexedLots.add(parkingLot);
+        }
+    }
+
+    // 停车场不再被任何小弟管理时，其中的车牌随之释放
+    synchronized void untrack(ParkingLot parkingLot) {
+        Integer count = trackCounts.get(parkingLot);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            trackCounts.put(parkingLot, count - 1);
+            return;
+        }
+        trackCounts.remove(parkingLot);
+        parkingLot.removeListener(this);
+        unindexedLots.remove(parkingLot);
+        ticketsByPlate.values().removeIf(ticket -> ticket.getParkingLot() == parkingLot);
+    }
+
+    // 同一车牌同时只能停一辆车：停车前先用 putIfAbsent 占住车牌，O(1) 且并发安全；无车牌的车不占
+    boolean claim(Car car) {
+        String plate = car.getPlate();
+        if (plate == null) {
+            return true;
+        }
+        indexParkedCars();
+        return ticketsByPlate.putIfAbsent(plate, CLAIMED) == null;
+    }
+
+    // 只能在 claim 成功之后调用：停下的车已由停车事件登记，没停下时释放车牌
+    void settle(Car car, ParkingTicket ticket) {
+        if (ticket == null && car.getPlate() != null) {
+            ticketsByPlate.remove(car.getPlate(), CLAIMED);
+        }
+    }
+
+    boolean contains(String plate) {
+        indexParkedCars();
+        return ticketsByPlate.containsKey(plate);
+    }
+
+    // 车牌对应的在停小票，没有这辆车或车还在停车途中时返回 null
+    ParkingTicket ticketOf(String plate) {
+        indexParkedCars();
+        ParkingTicket ticket = ticketsByPlate.get(plate);
+        return ticket == CLAIMED ? null : ticket;
+    }
+
+    // 停车和迁车停入新车位都会发出，车牌随之指向新小票
+    @Override
+    public void onParked(ParkingLot parkingLot, long ticketId) {
+        Car car = parkingLot.parkedCar(ticketId);
+        if (car != null && car.getPlate() != null) {
+            ticketsByPlate.put(car.getPlate(), new ParkingTicket(ticketId, parkingLot));
+        }
+    }
+
+    // 迁车腾出原车位时不发离场事件，车牌在迁移途中仍被占着
+    @Override
+    public void onDeparted(ParkingLot parkingLot, long ticketId, Car car) {
+        String plate = car.getPlate();
+        ParkingTicket indexed = plate == null ? null : ticketsByPlate.get(plate);
+        if (indexed != null && indexed.getParkingLot() == parkingLot && indexed.getId() == ticketId) {
+            ticketsByPlate.remove(plate, indexed);
+        }
+    }
+
+    private void indexParkedCars() {
+        if (!unindexedLots.isEmpty()) {
+            indexUnindexedLots();
+        }
+    }
+
+    // 补完之前其他查询线程在锁上等待，不会在补了一半的索引上放行重复的车牌
+    private synchronized void indexUnindexedLots() {
+        for (ParkingLot parkingLot : unindexedLots) {
+            parkingLot.forEachParkedTicket(ticketId -> {
+                Car car = parkingLot.parkedCar(ticketId);
+                if (car != null && car.getPlate() != null) {
+                    ticketsByPlate.putIfAbsent(car.getPlate(), new ParkingTicket(ticketId, parkingLot));
+                }
+            });
+            unindexedLots.remove(parkingLot);
+        }
+    }
+}
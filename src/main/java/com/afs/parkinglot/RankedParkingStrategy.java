@@ -0,0 +1,277 @@
+package com.afs.parkinglot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 按评分（空位数、空置率等）选场的策略：停车场按评分排好序，空位变化时增量调整 O(log N)
+// 排序后的最优停车场缓存在 volatile 字段里，select() 不加锁、O(1)
+// 排序放在并发跳表里，重新评分只锁被评分的那个停车场：不同停车场上的停取车互不等待，不会因策略退化成一把大锁
+// 评分相同时先登记的停车场优先，和原来顺序扫描时的取舍规则一致
+// 按车位类型选场时，该类车辆第一次选场才为它建一份排序，只按该类可用车位评分；
+// 所有停车场的车位该类车辆都能停时（例如只有标准车位），直接沿用整体排序
+class RankedParkingStrategy implements ParkingStrategy, ParkingLotListener {
+    private final Scorer scorer;
+    private final Ranking overall;
+    private final AtomicReferenceArray<Ranking> rankingsByType = new AtomicReferenceArray<>(BayType.COUNT);
+    // 登记、注销和建立按类型的排序很少发生，在策略的锁内进行；重新评分不取这把锁
+    private final List<ParkingLot> parkingLots = new ArrayList<>();
+    // 按位记录哪些车位类型在某个停车场里有不能停的车位，这些类型需要单独排序
+    private volatile int mixedTypes;
+    private int nextOrder;
+    private volatile ParkingMetrics metrics;
+
+    RankedParkingStrategy(Scorer scorer) {
+        this.scorer = scorer;
+        this.overall = new Ranking(null);
+    }
+
+    @Override
+    public void register(ParkingLot parkingLot) {
+        synchronized (this) {
+            if (overall.entries.containsKey(parkingLot)) {
+                return;
+            }
+            int order = nextOrder++;
+            parkingLots.add(parkingLot);
+            overall.add(parkingLot, order);
+            int mixed = mixedTypes;
+            for (BayType type : BayType.values()) {
+                if (parkingLot.getCapacity(type) != parkingLot.getCapacity()) {
+                    mixed |= 1 << type.ordinal();
+                }
+                Ranking ranking = rankingsByType.get(type.ordinal());
+                if (ranking != null) {
+                    ranking.add(parkingLot, order);
+                }
+            }
+            mixedTypes = mixed;
+        }
+        parkingLot.addListener(this);
+        // 登记期间停车场可能已经变化，重新评一次分
+        onAvailableCountChanged(parkingLot);
+    }
+
+    // 车位类型标记不回收：只会让该类车辆多走一份单独的排序，不影响结果
+    @Override
+    public void unregister(ParkingLot parkingLot) {
+        parkingLot.removeListener(this);
+        synchronized (this) {
+            if (!overall.entries.containsKey(parkingLot)) {
+                return;
+            }
+            parkingLots.remove(parkingLot);
+            overall.remove(parkingLot);
+            for (int i = 0; i < BayType.COUNT; i++) {
+                Ranking ranking = rankingsByType.get(i);
+                if (ranking != null) {
+                    ranking.remove(parkingLot);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindMetrics(ParkingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 返回评分最高且还有空位的停车场，全部停满时返回 null；只读缓存，每次只检查一个停车场
+    @Override
+    public ParkingLot select() {
+        return recordSelection(overall.best);
+    }
+
+    @Override
+    public ParkingLot select(BayType bayType) {
+        if ((mixedTypes & (1 << bayType.ordinal())) == 0) {
+            return select();
+        }
+        Ranking ranking = rankingsByType.get(bayType.ordinal());
+        if (ranking == null) {
+            ranking = createRanking(bayType);
+        }
+        return recordSelection(ranking.best);
+    }
+
+    // 批量停车时，选中的停车场在评分被第二名追平之前能连续接收的车辆数（至少 1）
+    // 与逐辆选场的结果一致，只是一次交给停车场预占；批量停车按整体空位评分
+    // 不加锁：并发停取车时读到的名次可能稍旧，只影响一次交给它的车辆数，停不下的车会再选场
+    @Override
+    public int batchShare(ParkingLot parkingLot, int remaining) {
+        Position position = overall.entries.get(parkingLot);
+        Entry head = position == null ? null : position.entry;
+        if (head == null) {
+            return 1;
+        }
+        Entry runnerUp = overall.ranking.higherKey(head);
+        if (runnerUp == null) {
+            return remaining;
+        }
+        int available = parkingLot.getAvailableCount();
+        int capacity = parkingLot.getCapacity();
+        int lead = 1;
+        while (lead < remaining && lead < available
+                && new Entry(parkingLot, scorer.score(parkingLot, available - lead, capacity), head.order).compareTo(runnerUp) < 0) {
+            lead++;
+        }
+        return lead;
+    }
+
+    @Override
+    public void onAvailableCountChanged(ParkingLot parkingLot) {
+        overall.update(parkingLot);
+        for (int i = 0; i < BayType.COUNT; i++) {
+            Ranking ranking = rankingsByType.get(i);
+            if (ranking != null) {
+                ranking.update(parkingLot);
+            }
+        }
+    }
+
+    static double vacancyRate(int availableCount, int capacity) {
+        if (capacity == 0) {
+            return 0.0; // 避免除零错误
+        }
+        return (double) availableCount / capacity;
+    }
+
+    private synchronized Ranking createRanking(BayType bayType) {
+        Ranking ranking = rankingsByType.get(bayType.ordinal());
+        if (ranking != null) {
+            return ranking;
+        }
+        ranking = new Ranking(bayType);
+        for (ParkingLot parkingLot : parkingLots) {
+            ranking.add(parkingLot, overall.entries.get(parkingLot).order);
+        }
+        rankingsByType.set(bayType.ordinal(), ranking);
+        // 发布之前的空位变化没有通知到这份排序，发布后再评一次分
+        for (ParkingLot parkingLot : parkingLots) {
+            ranking.update(parkingLot);
+        }
+        return ranking;
+    }
+
+    private ParkingLot recordSelection(ParkingLot selected) {
+        ParkingMetrics current = metrics;
+        if (current != null) {
+            current.recordLotsScanned(selected == null ? 0 : 1);
+        }
+        return selected;
+    }
+
+    interface Scorer {
+        double score(ParkingLot parkingLot, int availableCount, int capacity);
+    }
+
+    // 一份排序：bayType 为 null 时按整体空位评分，否则只按该类车辆可用的车位评分
+    // 增删在策略的锁内进行；重新评分只锁该停车场的位置，先插入新名次再删除旧名次，读者始终能看到这个停车场
+    private final class Ranking {
+        private final BayType bayType;
+        private final ConcurrentSkipListMap<Entry, Boolean> ranking = new ConcurrentSkipListMap<>();
+        private final Map<ParkingLot, Position> entries = new ConcurrentHashMap<>();
+        private volatile ParkingLot best;
+
+        private Ranking(BayType bayType) {
+            this.bayType = bayType;
+        }
+
+        private void add(ParkingLot parkingLot, int order) {
+            Position position = new Position(order);
+            synchronized (position) {
+                position.entry = new Entry(parkingLot, score(parkingLot), order);
+                ranking.put(position.entry, Boolean.TRUE);
+                entries.put(parkingLot, position);
+            }
+            refreshBest();
+        }
+
+        private void remove(ParkingLot parkingLot) {
+            Position position = entries.remove(parkingLot);
+            if (position == null) {
+                return;
+            }
+            synchronized (position) {
+                ranking.remove(position.entry);
+                position.entry = null;
+            }
+            refreshBest();
+        }
+
+        // 在锁内读取空位数：同一停车场的并发评分依次进行，最后一次一定按最新的空位数评分
+        private void update(ParkingLot parkingLot) {
+            Position position = entries.get(parkingLot);
+            if (position == null) {
+                return;
+            }
+            synchronized (position) {
+                Entry current = position.entry;
+                if (current == null) {
+                    return;
+                }
+                double score = score(parkingLot);
+                if (score == current.score) {
+                    return;
+                }
+                Entry updated = new Entry(parkingLot, score, position.order);
+                ranking.put(updated, Boolean.TRUE);
+                ranking.remove(current);
+                position.entry = updated;
+            }
+            refreshBest();
+        }
+
+        // 各停车场并发评分时，写入缓存后再核对一次排头，排头已变就重写，最后一次写入的总是当时的排头
+        private void refreshBest() {
+            Entry head;
+            do {
+                head = first();
+                best = head != null && head.score > 0 ? head.parkingLot : null;
+            } while (head != first());
+        }
+
+        private Entry first() {
+            Map.Entry<Entry, Boolean> head = ranking.firstEntry();
+            return head == null ? null : head.getKey();
+        }
+
+        private double score(ParkingLot parkingLot) {
+            if (bayType == null) {
+                return scorer.score(parkingLot, parkingLot.getAvailableCount(), parkingLot.getCapacity());
+            }
+            return scorer.score(parkingLot, parkingLot.getAvailableCount(bayType), parkingLot.getCapacity(bayType));
+        }
+    }
+
+    // 停车场在一份排序里的当前名次，同时是重新评分时按停车场加的锁；移除后 entry 为 null
+    private static final class Position {
+        private final int order;
+        private volatile Entry entry;
+
+        private Position(int order) {
+            this.order = order;
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final ParkingLot parkingLot;
+        private final double score;
+        private final int order;
+
+        private Entry(ParkingLot parkingLot, double score, int order) {
+            this.parkingLot = parkingLot;
+            this.score = score;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Integer.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.afs.parkinglot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 把停车场分散到多个节点（分片）上的注册中心，每个节点各自的视图都有一个本地分片
+// 停车先交给本地分片，停满时按环形顺序依次溢出到其他分片，各分片内部沿用停车小弟的选场规则
+// 签发的小票带上分片编号，取车直接路由到所属分片，不需要逐个询问
+public class ShardedParkingRegistry {
+    private final ParkingShard[] shards;
+    private final int localShard;
+
+    public ShardedParkingRegistry(List<? extends ParkingShard> shards) {
+        this(shards, 0);
+    }
+
+    public ShardedParkingRegistry(List<? extends ParkingShard> shards, int localShard) {
+        if (!shards.isEmpty() && (localShard < 0 || localShard >= shards.size())) {
+            throw new IllegalArgumentException("Local shard out of range: " + localShard);
+        }
+        this.shards = new ArrayList<>(shards).toArray(new ParkingShard[0]);
+        this.localShard = localShard;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public ParkingTicket park(Car car) {
+        if (shards.length == 0) {
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
+        }
+        if (car == null) {
+            throw ParkingException.NULL_CAR;
+        }
+
+        ParkingTicket ticket = tryPark(car);
+        if (ticket == null) {
+            throw ParkingException.NO_AVAILABLE_POSITION;
+        }
+        return ticket;
+    }
+
+    public Car fetch(ParkingTicket ticket) {
+        if (shards.length == 0) {
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
+        }
+
+        Car car = tryFetch(ticket);
+        if (car == null) {
+            throw ParkingException.UNRECOGNIZED_TICKET;
+        }
+        return car;
+    }
+
+    // 不抛异常的停车：所有分片都停满时返回 null
+    public ParkingTicket tryPark(Car car) {
+        if (car == null) {
+            return null;
+        }
+        for (int i = 0; i < shards.length; i++) {
+            int shard = (localShard + i) % shards.length;
+            ParkingTicket ticket = shards[shard].tryPark(car);
+            if (ticket != null) {
+                return ticket.withShard(shard);
+            }
+        }
+        return null;
+    }
+
+    // 不抛异常的取车：按小票上的分片编号路由，不属于任何分片时返回 null
+    public Car tryFetch(ParkingTicket ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        int shard = ticket.getShard();
+        if (shard < 0 || shard >= shards.length) {
+            return null;
+        }
+        return shards[shard].tryFetch(ticket);
+    }
+}
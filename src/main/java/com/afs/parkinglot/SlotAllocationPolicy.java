@@ -0,0 +1,8 @@
+package com.afs.parkinglot;
+
+public enum SlotAllocationPolicy {
+    // 从上次分配的位置往后找空车位，车辆在整个停车场内分散停放
+    NEXT_FREE,
+    // 总是分配编号最小的空车位，车位 0 离入口最近
+    NEAREST_TO_ENTRANCE
+}
@@ -0,0 +1,82 @@
+package com.afs.parkinglot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 车位占用位图，每个 long 记录 64 个车位，置位表示有车
+// 分配时按字扫描，字内用 numberOfTrailingZeros 直接定位空位，再用 CAS 认领，无锁且不为车位分配对象
+class SlotBitmap {
+    private static final int WORD_BITS = 64;
+
+    private final int size;
+    private final AtomicLongArray words;
+    private final AtomicInteger nextWordHint;
+
+    SlotBitmap(int size) {
+        this.size = size;
+        int wordCount = (size + WORD_BITS - 1) / WORD_BITS;
+        this.words = new AtomicLongArray(wordCount);
+        this.nextWordHint = new AtomicInteger();
+        int tailBits = size % WORD_BITS;
+        if (tailBits != 0) {
+            // 最后一个字里超出容量的位永远视为已占用
+            words.set(wordCount - 1, -1L << tailBits);
+        }
+    }
+
+    // 认领一个空车位并返回车位号，没有空位时返回 -1
+    int allocate(SlotAllocationPolicy policy) {
+        int wordCount = words.length();
+        if (wordCount == 0) {
+            return -1;
+        }
+        int start = policy == SlotAllocationPolicy.NEAREST_TO_ENTRANCE ? 0 : nextWordHint.get();
+        for (int scanned = 0; scanned < wordCount; ) {
+            int index = start + scanned < wordCount ? start + scanned : start + scanned - wordCount;
+            long word = words.get(index);
+            if (word == -1L) {
+                scanned++;
+                continue;
+            }
+            int bit = Long.numberOfTrailingZeros(~word);
+            if (words.compareAndSet(index, word, word | (1L << bit))) {
+                if (policy == SlotAllocationPolicy.NEXT_FREE) {
+                    nextWordHint.lazySet(index);
+                }
+                return index * WORD_BITS + bit;
+            }
+            // CAS 失败说明这个字被别的线程改了，重新读同一个字
+        }
+        return -1;
+    }
+
+    // 认领指定车位，已被占用时返回 false
+    boolean occupy(int slot) {
+        int index = slot / WORD_BITS;
+        long mask = 1L << (slot % WORD_BITS);
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        return true;
+    }
+
+    void free(int slot) {
+        int index = slot / WORD_BITS;
+        long mask = 1L << (slot % WORD_BITS);
+        long word;
+        do {
+            word = words.get(index);
+        } while (!words.compareAndSet(index, word, word & ~mask));
+    }
+
+    boolean isOccupied(int slot) {
+        if (slot < 0 || slot >= size) {
+            return false;
+        }
+        return (words.get(slot / WORD_BITS) & (1L << (slot % WORD_BITS))) != 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.afs.parkinglot;
+
+// 停车场保存在停车辆的方式
+public enum SlotStorage {
+    // 车辆对象留在堆上，取车拿回的是停车时交来的同一个对象
+    HEAP,
+    // 每个车位一条定长记录放在堆外直接内存里，停着的车不在堆上留下对象，适合几十万车位的大型停车场
+    // 取车拿回的是按记录重建的车辆：车牌和车位类型相同，但不是停车时的同一个对象
+    OFF_HEAP;
+
+    SlotStore create(int capacity) {
+        return this == OFF_HEAP ? new OffHeapSlotStore(capacity) : new HeapSlotStore(capacity);
+    }
+}
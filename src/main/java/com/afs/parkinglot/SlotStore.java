@@ -0,0 +1,23 @@
+package com.afs.parkinglot;
+
+// 停车场按车位号保存的停车记录：停着的车和停入时刻（System.nanoTime()）
+// 不做同步：停车在推进车位代数之前写入，取车在读到代数之后读取，可见性由停车场代数数组的 volatile 读写保证
+interface SlotStore {
+    void store(int slot, Car car, long parkedAtNanos);
+
+    Car load(int slot);
+
+    long parkedAt(int slot);
+
+    // 车离开后调用，不再持有这辆车
+    void clear(int slot);
+
+    // 落盘的存储同时保存车位代数，重启后据此恢复在停车辆；只在内存里的存储不需要
+    // 停车时在发布新代数之前写入，取车时在腾出车位之前写入，同一车位的写入因此不会乱序
+    default void storeGeneration(int slot, int generation) {
+    }
+
+    default int loadGeneration(int slot) {
+        return 0;
+    }
+}
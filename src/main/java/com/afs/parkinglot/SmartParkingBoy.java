@@ -1,51 +1,25 @@
 package com.afs.parkinglot;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+// 总是把车停到空位最多的停车场，相同时按顺序选第一个；也可以改按预测空位选场
 public class SmartParkingBoy extends StandardParkingBoy {
 
     public SmartParkingBoy() {
-        super();
+        super(ParkingStrategy.mostAvailable());
     }
 
     public SmartParkingBoy(ParkingLot parkingLot) {
-        super(parkingLot);
+        this(Collections.singletonList(parkingLot));
     }
 
     public SmartParkingBoy(List<ParkingLot> parkingLots) {
-        super(parkingLots);
+        super(parkingLots, ParkingStrategy.mostAvailable());
     }
 
-    @Override
-    public ParkingTicket park(Car car) {
-        List<ParkingLot> managedLots = getManagedParkingLots();
-        if (managedLots.isEmpty()) {
-            throw new ParkingException("No parking lot managed.");
-        }
-
-        ParkingLot bestLot = selectBestParkingLot(managedLots);
-        if (bestLot != null) {
-            return bestLot.park(car);
-        }
-
-        throw new ParkingException("No available position.");
-    }
-
-    private ParkingLot selectBestParkingLot(List<ParkingLot> parkingLots) {
-        ParkingLot bestLot = null;
-        int maxAvailableSpaces = -1;
-
-        for (ParkingLot parkingLot : parkingLots) {
-            if (!parkingLot.isFull()) {
-                int availableSpaces = parkingLot.getAvailableCount();
-                if (availableSpaces > maxAvailableSpaces) {
-                    maxAvailableSpaces = availableSpaces;
-                    bestLot = parkingLot;
-                }
-                // 如果空位数相同，保持当前选择（相当于按顺序选择第一个最优的）
-            }
-        }
-
-        return bestLot;
+    // 按 horizon 之后的预测空位选场，不再把车送进即将停满的停车场
+    public SmartParkingBoy(List<ParkingLot> parkingLots, OccupancyForecaster forecaster, long horizon, TimeUnit unit) {
+        super(parkingLots, ParkingStrategy.mostPredictedAvailable(forecaster, horizon, unit));
     }
-}
\ No newline at end of file
+}
@@ -1,66 +1,512 @@
 package com.afs.parkinglot;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
-public class StandardParkingBoy {
-    private final List<ParkingLot> parkingLots;
+public class StandardParkingBoy implements ParkingShard {
+    private static final int MAX_PARK_ATTEMPTS = 3;
+    // 迁车时为目标车位预留的时长，正常情况下预留会立即兑现
+    private static final long RELOCATION_HOLD_SECONDS = 60;
+
+    // 写时复制的名册，也用于按停车场编号查找：线路协议等只带小票编号的入口据此还原小票
+    private final ParkingLotRegistry parkingLots = new ParkingLotRegistry();
+    private final ParkingStrategy parkingStrategy;
+    private final ParkingMetrics metrics = new ParkingMetrics();
+    // 本小弟停车场里有车牌的车，由停车场事件维护；交给经理管理后换成经理手下小弟共用的索引
+    private volatile PlateIndex plateIndex = new PlateIndex();
+    // 停用停车场时迁走的车：原小票编号 -> 转发项，凭原小票取车时转到新车位，取车后删除
+    private final Map<Long, Forwarding> forwardedTickets = new ConcurrentHashMap<>();
+    private final List<ParkingBoyListener> listeners = new CopyOnWriteArrayList<>();
 
     public StandardParkingBoy() {
-        this.parkingLots = new ArrayList<>();
+        this(ParkingStrategy.firstAvailable());
     }
 
     public StandardParkingBoy(ParkingLot parkingLot) {
-        this();
-        this.parkingLots.add(parkingLot);
+        this(Collections.singletonList(parkingLot));
     }
 
     public StandardParkingBoy(List<ParkingLot> parkingLots) {
-        this.parkingLots = new ArrayList<>(parkingLots);
+        this(parkingLots, ParkingStrategy.firstAvailable());
+    }
+
+    public StandardParkingBoy(ParkingStrategy parkingStrategy) {
+        this(Collections.emptyList(), parkingStrategy);
     }
 
+    public StandardParkingBoy(List<ParkingLot> parkingLots, ParkingStrategy parkingStrategy) {
+        this.parkingStrategy = parkingStrategy;
+        parkingStrategy.bindMetrics(metrics);
+        for (ParkingLot parkingLot : parkingLots) {
+            manageLot(parkingLot);
+        }
+    }
+
+    // 可以在其他线程停车、取车的同时调用
     public void manageParkingLot(ParkingLot parkingLot) {
-        parkingLots.add(parkingLot);
+        manageLot(parkingLot);
+    }
+
+    // 管理日志恢复出来的全部停车场；车牌索引按在停车辆重建，重启后同一车牌不能再停一辆，按车牌也能找到车
+    public void attach(ParkingJournal journal) {
+        for (ParkingLot parkingLot : journal.getParkingLots()) {
+            manageLot(parkingLot);
+        }
     }
 
+    // 管理状态文件里的全部停车场：重启后挂接即可凭旧小票取车，车牌索引同样按在停车辆重建
+    // 停车场的车位记录在第一次停取车或第一次按车牌查询时才加载
+    public void attach(FleetStateFile fleetState) {
+        for (ParkingLot parkingLot : fleetState.getParkingLots()) {
+            manageLot(parkingLot);
+        }
+    }
+
+    // 不再管理该停车场：不再往里停车，经本小弟也取不回其中的车（可直接向停车场取车）
+    // 可以在其他线程停车、取车的同时调用；不是本小弟管理的停车场返回 false
+    public boolean removeParkingLot(ParkingLot parkingLot) {
+        if (!parkingLots.remove(parkingLot)) {
+            return false;
+        }
+        parkingStrategy.unregister(parkingLot);
+        metrics.untrack(parkingLot);
+        // 停在该停车场的车不再由本小弟负责，没有别的小弟管理它时车牌随之释放
+        plateIndex.untrack(parkingLot);
+        for (ParkingBoyListener listener : listeners) {
+            listener.onParkingLotRemoved(this, parkingLot);
+        }
+        return true;
+    }
+
+    // 订阅本小弟管理的停车场增删；订阅之前已管理的停车场不会补发事件
+    public void addListener(ParkingBoyListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ParkingBoyListener listener) {
+        listeners.remove(listener);
+    }
+
+    // 停用停车场：立即不再往里停车，已停的车照常凭小票取车，车全部离场后本小弟不再管理它
+    // 停车场本身也随之停用，同时管理它的其他小弟同样不能再往里停车
+    public LotDrain drainParkingLot(ParkingLot parkingLot) {
+        return drain(parkingLot, 0, 0);
+    }
+
+    // 停用停车场并在后台把在停车辆迁到本小弟的其他停车场：每批最多 batchSize 辆，批与批之间暂停 pause
+    // 迁走的车原小票照常可取；其他停车场没有空位时暂停迁车，下一批再试
+    public LotDrain drainParkingLot(ParkingLot parkingLot, int batchSize, long pause, TimeUnit unit) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size out of range: " + batchSize);
+        }
+        return drain(parkingLot, batchSize, unit.toNanos(pause));
+    }
+
+    // 改用共享的车牌索引，本小弟的停车场转到共享索引里跟踪；应在开始停车之前调用
+    synchronized void usePlateIndex(PlateIndex shared) {
+        PlateIndex previous = plateIndex;
+        if (previous == shared) {
+            return;
+        }
+        for (ParkingLot parkingLot : parkingLots.asList()) {
+            shared.track(parkingLot);
+        }
+        plateIndex = shared;
+        for (ParkingLot parkingLot : parkingLots.asList()) {
+            previous.untrack(parkingLot);
+        }
+    }
+
+    boolean manages(ParkingLot parkingLot) {
+        return parkingLots.contains(parkingLot);
+    }
+
+    // 当前管理的停车场，只读；返回名册快照的视图，不复制，之后的增删不会反映在已返回的列表上
     public List<ParkingLot> getManagedParkingLots() {
-        return new ArrayList<>(parkingLots);
+        return parkingLots.asList();
+    }
+
+    // 本小弟的停车、取车统计，可轮询 snapshot() 或通过 registerMBean 暴露给 JMX
+    public ParkingMetrics getMetrics() {
+        return metrics;
     }
 
     public ParkingTicket park(Car car) {
-        if (parkingLots.isEmpty()) {
-            throw new ParkingException("No parking lot managed.");
+        ParkingTicket ticket = tryPark(car);
+        if (ticket == null) {
+            throw parkRejection(car).exception();
         }
+        return ticket;
+    }
 
-        for (ParkingLot parkingLot : parkingLots) {
-            if (!parkingLot.isFull()) {
-                return parkingLot.park(car);
+    public Car fetch(ParkingTicket ticket) {
+        Car car = tryFetch(ticket);
+        if (car == null) {
+            throw fetchRejection().exception();
+        }
+        return car;
+    }
+
+    // 不抛异常的停车：没有管理停车场、车为空或全部停满时返回 null
+    @Override
+    public ParkingTicket tryPark(Car car) {
+        long start = System.nanoTime();
+        ParkingTicket ticket = null;
+        if (car != null && plateIndex.claim(car)) {
+            ticket = parkInSelectedLot(car);
+            plateIndex.settle(car, ticket);
+        }
+        metrics.recordPark(System.nanoTime() - start, ticket == null ? parkRejection(car) : null);
+        return ticket;
+    }
+
+    // 不抛异常的取车：小票记录了签发的停车场，直接交给它处理；无法识别时返回 null
+    @Override
+    public Car tryFetch(ParkingTicket ticket) {
+        long start = System.nanoTime();
+        Car car = ticket == null ? null : fetchFromOwner(ticket);
+        metrics.recordFetch(System.nanoTime() - start, car == null ? fetchRejection() : null);
+        return car;
+    }
+
+    // 按本小弟的选场规则预留一个车位，全部停满时抛出异常
+    public ParkingHold hold(long timeout, TimeUnit unit) {
+        return hold(BayType.STANDARD, timeout, unit);
+    }
+
+    // 为指定车位类型的车辆预留车位，预留的车位该类车辆一定能停
+    public ParkingHold hold(BayType bayType, long timeout, TimeUnit unit) {
+        ParkingHold hold = tryHold(bayType, timeout, unit);
+        if (hold == null) {
+            throw holdRejection().exception();
+        }
+        return hold;
+    }
+
+    public ParkingHold tryHold(long timeout, TimeUnit unit) {
+        return tryHold(BayType.STANDARD, timeout, unit);
+    }
+
+    public ParkingHold tryHold(BayType bayType, long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        ParkingHold hold = holdInSelectedLot(bayType, timeout, unit);
+        metrics.recordHold(System.nanoTime() - start, hold == null ? holdRejection() : null);
+        return hold;
+    }
+
+    private ParkingHold holdInSelectedLot(BayType bayType, long timeout, TimeUnit unit) {
+        for (int attempt = 0; attempt < MAX_PARK_ATTEMPTS; attempt++) {
+            ParkingLot parkingLot = parkingStrategy.select(bayType);
+            if (parkingLot == null) {
+                return null;
+            }
+            if (!parkingLots.contains(parkingLot)) {
+                continue;
+            }
+            ParkingHold hold = parkingLot.tryHold(bayType, timeout, unit);
+            if (hold != null) {
+                return hold;
             }
         }
+        return null;
+    }
 
-        throw new ParkingException("No available position.");
+    // 持预留的车到达：预留仍有效时停进预留的停车场，否则按普通停车处理
+    // 预留兑现失败转为普通停车时只按普通停车计一次
+    public ParkingTicket park(Car car, ParkingHold hold) {
+        long start = System.nanoTime();
+        if (hold != null && car != null && parkingLots.contains(hold.getParkingLot()) && plateIndex.claim(car)) {
+            ParkingTicket ticket = hold.getParkingLot().tryPark(car, hold);
+            plateIndex.settle(car, ticket);
+            if (ticket != null) {
+                metrics.recordPark(System.nanoTime() - start, null);
+                return ticket;
+            }
+        }
+        return park(car);
     }
 
-    public Car fetch(ParkingTicket ticket) {
+    // 按车牌找车，车不在本小弟管理的停车场里时返回 null
+    public CarLocation locate(String plate) {
+        ParkingTicket ticket = plate == null ? null : plateIndex.ticketOf(plate);
+        if (ticket == null || !parkingLots.contains(ticket.getParkingLot())) {
+            return null;
+        }
+        return new CarLocation(ticket.getParkingLot(), ticket.getSlotNumber());
+    }
+
+    // 批量停车：按本小弟的选场规则把整批车分配到各停车场，每个停车场一次性预占车位
+    // 结果与 cars 一一对应，停不下或为空的车对应位置为 null，部分失败不抛异常
+    public List<ParkingTicket> parkAll(List<Car> cars) {
+        long start = System.nanoTime();
         if (parkingLots.isEmpty()) {
-            throw new ParkingException("No parking lot managed.");
+            metrics.recordParkBatch(System.nanoTime() - start, cars.size());
+            metrics.recordRejections(ParkingRejection.NO_PARKING_LOT_MANAGED, cars.size());
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
         }
 
-        if (ticket == null) {
-            throw new ParkingException("Unrecognized parking ticket.");
+        List<ParkingTicket> tickets = new ArrayList<>(Collections.nCopies(cars.size(), (ParkingTicket) null));
+        List<Car> waitingCars = new ArrayList<>(cars.size());
+        List<Integer> positions = new ArrayList<>(cars.size());
+        int nullCars = 0;
+        for (int i = 0; i < cars.size(); i++) {
+            if (cars.get(i) == null) {
+                nullCars++;
+            } else if (plateIndex.claim(cars.get(i))) {
+                waitingCars.add(cars.get(i));
+                positions.add(i);
+            }
+        }
+
+        int next = 0;
+        while (next < waitingCars.size()) {
+            ParkingLot parkingLot = parkingStrategy.select();
+            if (parkingLot == null || !parkingLots.contains(parkingLot)) {
+                break;
+            }
+            int share = parkingStrategy.batchShare(parkingLot, waitingCars.size() - next);
+            List<ParkingTicket> issued = parkingLot.parkAll(waitingCars.subList(next, next + share));
+            int parked = 0;
+            for (int i = 0; i < issued.size(); i++) {
+                if (issued.get(i) != null) {
+                    tickets.set(positions.get(next + i), issued.get(i));
+                    parked++;
+                }
+            }
+            if (parked == 0) {
+                break;
+            }
+            next += share;
+        }
+        // 选中的停车场被其他出入口停满，或剩下的车需要的车位类型这里没有，逐辆按车位类型再选场
+        for (int i = 0; i < waitingCars.size(); i++) {
+            if (tickets.get(positions.get(i)) == null) {
+                tickets.set(positions.get(i), parkInSelectedLot(waitingCars.get(i)));
+            }
+        }
+        int unparked = 0;
+        for (int i = 0; i < waitingCars.size(); i++) {
+            ParkingTicket ticket = tickets.get(positions.get(i));
+            plateIndex.settle(waitingCars.get(i), ticket);
+            if (ticket == null) {
+                unparked++;
+            }
         }
+        metrics.recordParkBatch(System.nanoTime() - start, cars.size());
+        metrics.recordRejections(ParkingRejection.NULL_CAR, nullCars);
+        metrics.recordRejections(ParkingRejection.DUPLICATE_CAR, cars.size() - nullCars - waitingCars.size());
+        metrics.recordRejections(ParkingRejection.NO_AVAILABLE_POSITION, unparked);
+        return tickets;
+    }
 
+    // 批量取车：按签发停车场分组后批量归还，无法识别的小票对应位置为 null
+    public List<Car> fetchAll(List<ParkingTicket> tickets) {
+        long start = System.nanoTime();
+        if (parkingLots.isEmpty()) {
+            metrics.recordFetchBatch(System.nanoTime() - start, tickets.size());
+            metrics.recordRejections(ParkingRejection.NO_PARKING_LOT_MANAGED, tickets.size());
+            throw ParkingException.NO_PARKING_LOT_MANAGED;
+        }
 
-        for (ParkingLot parkingLot : parkingLots) {
-            try {
-                Car car = parkingLot.fetch(ticket);
+        Map<ParkingLot, List<Integer>> positionsByLot = new LinkedHashMap<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            ParkingTicket ticket = tickets.get(i);
+            ParkingLot owner = ticket == null ? null : ticket.getParkingLot();
+            if (parkingLots.contains(owner)) {
+                positionsByLot.computeIfAbsent(owner, lot -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Car> cars = new ArrayList<>(Collections.nCopies(tickets.size(), (Car) null));
+        for (Map.Entry<ParkingLot, List<Integer>> group : positionsByLot.entrySet()) {
+            List<ParkingTicket> lotTickets = new ArrayList<>(group.getValue().size());
+            for (int position : group.getValue()) {
+                lotTickets.add(tickets.get(position));
+            }
+            List<Car> fetched = group.getKey().fetchAll(lotTickets);
+            for (int i = 0; i < fetched.size(); i++) {
+                Car car = fetched.get(i);
                 if (car != null) {
-                    return car;
+                    cars.set(group.getValue().get(i), car);
                 }
-            } catch (ParkingException e) {
+            }
+        }
+        // 停用停车场时迁走的车，原小票逐张转到新车位
+        if (!forwardedTickets.isEmpty()) {
+            for (int i = 0; i < tickets.size(); i++) {
+                if (cars.get(i) == null && tickets.get(i) != null) {
+                    cars.set(i, fetchForwarded(tickets.get(i)));
+                }
+            }
+        }
+        int unrecognized = 0;
+        for (Car car : cars) {
+            if (car == null) {
+                unrecognized++;
+            }
+        }
+        metrics.recordFetchBatch(System.nanoTime() - start, tickets.size());
+        metrics.recordRejections(ParkingRejection.UNRECOGNIZED_TICKET, unrecognized);
+        return cars;
+    }
+
+    // 选中的停车场可能刚被其他出入口停满，换一个再试，次数有限
+    private ParkingTicket parkInSelectedLot(Car car) {
+        for (int attempt = 0; attempt < MAX_PARK_ATTEMPTS; attempt++) {
+            ParkingLot parkingLot = parkingStrategy.select(car.getBayType());
+            if (parkingLot == null) {
+                return null;
+            }
+            // 策略可能还没来得及注销刚被移除的停车场
+            if (!parkingLots.contains(parkingLot)) {
                 continue;
             }
+            ParkingTicket ticket = parkingLot.tryPark(car);
+            if (ticket != null) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private Car fetchFromOwner(ParkingTicket ticket) {
+        ParkingLot owner = ticket.getParkingLot();
+        Car car = parkingLots.contains(owner) ? owner.tryFetch(ticket) : null;
+        if (car == null && !forwardedTickets.isEmpty()) {
+            car = fetchForwarded(ticket);
+        }
+        return car;
+    }
+
+    // 凭迁车前的小票取车；车正在迁移途中时阻塞等它停进新车位，不空转占着 CPU
+    private Car fetchForwarded(ParkingTicket ticket) {
+        Forwarding forwarding = forwardedTickets.get(ticket.getId());
+        if (forwarding == null) {
+            return null;
+        }
+        ParkingTicket moved = forwarding.awaitLanded();
+        if (moved == null || !forwardedTickets.remove(ticket.getId(), forwarding)) {
+            return null;
+        }
+        // 新车位所在的停车场也可能已经停用并再次迁车
+        return fetchFromOwner(moved);
+    }
+
+    private LotDrain drain(ParkingLot parkingLot, int batchSize, long pauseNanos) {
+        if (!parkingLots.contains(parkingLot)) {
+            throw new IllegalArgumentException("Parking lot not managed: " + parkingLot.getId());
+        }
+        parkingLot.drain();
+        parkingStrategy.unregister(parkingLot);
+        LotDrain drain = new LotDrain(this, parkingLot, batchSize);
+        drain.start(pauseNanos);
+        return drain;
+    }
+
+    // 把停用停车场里的一辆车迁到本小弟的其他停车场，原小票转发到新小票
+    // 先在目标停车场预留车位再取车，取出的车一定有地方停；其他停车场没有空位或车已被取走时返回 null
+    ParkingTicket relocate(ParkingLot source, long ticketId, BayType bayType) {
+        // 迁车不是顾客的预留，不计入统计
+        ParkingHold hold = holdInSelectedLot(bayType, RELOCATION_HOLD_SECONDS, TimeUnit.SECONDS);
+        if (hold == null) {
+            return null;
+        }
+        // 先登记转发项再取车：车主取车落空时一定能看到它并等待迁移完成
+        Forwarding forwarding = new Forwarding();
+        forwardedTickets.put(ticketId, forwarding);
+        // 车现在对应的小票和原小票不同时转发
+        ParkingTicket forwarded = null;
+        try {
+            // 挪车不结束这次停留：原停车场不发停留结束事件，新停车场沿用原停入时刻，车主取车时只计一次费
+            ParkingLot.MovedCar car = source.moveOut(ticketId);
+            if (car == null) {
+                hold.cancel();
+                return null;
+            }
+            ParkingTicket moved = hold.getParkingLot().moveIn(car, hold);
+            if (moved == null) {
+                // 预留已过期且目标停车场停满，车放回原停车场；回到原车位时原小票继续有效
+                ParkingTicket back = source.moveBack(ticketId, car);
+                if (back != null && back.getId() != ticketId) {
+                    forwarded = back;
+                }
+                return null;
+            }
+            forwarded = moved;
+            return moved;
+        } finally {
+            if (forwarded == null) {
+                forwardedTickets.remove(ticketId, forwarding);
+            }
+            forwarding.land(forwarded);
         }
+    }
 
-        throw new ParkingException("Unrecognized parking ticket.");
+    // 只在失败时调用，按原来的检查顺序给出拒绝原因
+    ParkingRejection parkRejection(Car car) {
+        if (parkingLots.isEmpty()) {
+            return ParkingRejection.NO_PARKING_LOT_MANAGED;
+        }
+        if (car == null) {
+            return ParkingRejection.NULL_CAR;
+        }
+        if (car.getPlate() != null && plateIndex.contains(car.getPlate())) {
+            return ParkingRejection.DUPLICATE_CAR;
+        }
+        return ParkingRejection.NO_AVAILABLE_POSITION;
+    }
+
+    private ParkingRejection holdRejection() {
+        return parkingLots.isEmpty() ? ParkingRejection.NO_PARKING_LOT_MANAGED : ParkingRejection.NO_AVAILABLE_POSITION;
+    }
+
+    ParkingRejection fetchRejection() {
+        return parkingLots.isEmpty() ? ParkingRejection.NO_PARKING_LOT_MANAGED : ParkingRejection.UNRECOGNIZED_TICKET;
+    }
+
+    // 由小票编号还原小票，编号里的停车场不归本小弟管理时小票无法取车
+    ParkingTicket ticketOf(long ticketId) {
+        return new ParkingTicket(ticketId, parkingLots.get(ParkingTicket.lotIdOf(ticketId)));
+    }
+
+    // 构造期间也会调用，不能是可重写的方法
+    private void manageLot(ParkingLot parkingLot) {
+        if (!parkingLots.add(parkingLot)) {
+            return;
+        }
+        metrics.track(parkingLot);
+        plateIndex.track(parkingLot);
+        parkingStrategy.register(parkingLot);
+        for (ParkingBoyListener listener : listeners) {
+            listener.onParkingLotAdded(this, parkingLot);
+        }
+    }
+
+    // 一辆迁移中的车的转发项：车停进新车位（或迁移失败）之前，凭原小票取车的线程在这里等待
+    private static final class Forwarding {
+        private final CountDownLatch landed = new CountDownLatch(1);
+        private volatile ParkingTicket ticket;
+
+        void land(ParkingTicket ticket) {
+            this.ticket = ticket;
+            landed.countDown();
+        }
+
+        // 车现在对应的新小票，迁移失败或等待被中断时返回 null
+        ParkingTicket awaitLanded() {
+            try {
+                landed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return ticket;
+        }
     }
-}
\ No newline at end of file
+}
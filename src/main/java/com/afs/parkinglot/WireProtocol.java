@@ -0,0 +1,96 @@
+package com.afs.parkinglot;
+
+// 闸口控制器使用的定长二进制协议，大端字节序
+// 请求头（16 字节）：请求编号 int | 操作 byte | 车位类型 byte | 数量 unsigned short | 负载 long
+//   车位类型 0 表示标准车位，否则为 BayType 序号 + 1；只有 PARK 使用，其他操作填 0
+//   PARK        数量 = 车牌字节数（0 表示无车牌），头后紧跟车牌（UTF-8）
+//   FETCH       负载 = 小票编号
+//   PARK_BATCH  数量 = 车辆数（无车牌）
+//   FETCH_BATCH 数量 = 小票数，头后紧跟对应个数的小票编号 long
+//   STATUS      无参数
+// 响应头（16 字节）：请求编号 int | 操作 byte | 状态 byte | 数量 unsigned short | 负载 long
+//   状态 0 表示成功，否则为 ParkingRejection 序号 + 1
+//   PARK 负载 = 小票编号；STATUS 负载 = 空位数 int | 容量 int，各占 32 位，超过 Integer.MAX_VALUE 时按 Integer.MAX_VALUE 报
+//   PARK_BATCH / FETCH_BATCH 头后紧跟数量个 long：小票编号 / 1 取到、0 未取到，失败位置为 0
+//   整批被拒绝时（停车小弟没有管理停车场）状态非 0、数量为 0，头后不跟数据
+// 同一连接上可以连续发送多个请求而不等待响应，响应按请求顺序返回
+final class WireProtocol {
+    static final int HEADER_BYTES = 16;
+    static final int MAX_BATCH = 4096;
+    static final int MAX_FRAME_BYTES = HEADER_BYTES + MAX_BATCH * Long.BYTES;
+
+    static final byte PARK = 1;
+    static final byte FETCH = 2;
+    static final byte PARK_BATCH = 3;
+    static final byte FETCH_BATCH = 4;
+    static final byte STATUS = 5;
+
+    static final byte OK = 0;
+
+    static final int REQUEST_ID_OFFSET = 0;
+    static final int OP_OFFSET = 4;
+    static final int STATUS_OFFSET = 5;
+    static final int BAY_TYPE_OFFSET = 5;
+    static final int COUNT_OFFSET = 6;
+    static final int PAYLOAD_OFFSET = 8;
+
+    private WireProtocol() {
+    }
+
+    // 请求头之后跟随的字节数，未知操作返回 -1
+    static int requestBodyBytes(byte op, int count) {
+        switch (op) {
+            case PARK:
+                return count;
+            case FETCH_BATCH:
+                return count * Long.BYTES;
+            case FETCH:
+            case PARK_BATCH:
+            case STATUS:
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    static int responseBodyBytes(byte op, int count) {
+        return op == PARK_BATCH || op == FETCH_BATCH ? count * Long.BYTES : 0;
+    }
+
+    // 两个数各自截到 int 范围再拼接，任何一个超过 32 位都不会串到另一个里
+    static long statusPayload(long available, long capacity) {
+        return (long) saturate(available) << 32 | saturate(capacity);
+    }
+
+    static int availableOf(long statusPayload) {
+        return (int) (statusPayload >>> 32);
+    }
+
+    static int capacityOf(long statusPayload) {
+        return (int) statusPayload;
+    }
+
+    private static int saturate(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    static byte bayTypeCode(BayType bayType) {
+        return bayType == BayType.STANDARD ? 0 : (byte) (bayType.ordinal() + 1);
+    }
+
+    // 无法识别的编码返回 null
+    static BayType bayTypeOf(byte code) {
+        if (code == 0) {
+            return BayType.STANDARD;
+        }
+        return code > 0 && code <= BayType.COUNT ? BayType.values()[code - 1] : null;
+    }
+
+    static byte statusOf(ParkingRejection rejection) {
+        return rejection == null ? OK : (byte) (rejection.ordinal() + 1);
+    }
+
+    static ParkingRejection rejectionOf(byte status) {
+        return status == OK ? null : ParkingRejection.values()[status - 1];
+    }
+}
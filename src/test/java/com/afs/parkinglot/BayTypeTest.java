@@ -0,0 +1,168 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BayTypeTest {
+
+    private static BayLayout mixedLayout() {
+        return new BayLayout()
+                .with(BayType.COMPACT, 1)
+                .with(BayType.STANDARD, 1)
+                .with(BayType.OVERSIZE, 1)
+                .with(BayType.EV_CHARGING, 1);
+    }
+
+    @Test
+    void should_park_car_in_bay_of_its_own_type_first() {
+        ParkingLot parkingLot = new ParkingLot(mixedLayout());
+
+        ParkingTicket compact = parkingLot.park(new Car(BayType.COMPACT));
+        ParkingTicket ev = parkingLot.park(new Car(BayType.EV_CHARGING));
+
+        assertEquals(0, compact.getSlotNumber());
+        assertEquals(3, ev.getSlotNumber());
+        assertEquals(4, parkingLot.getCapacity());
+        assertEquals(2, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_fall_back_to_larger_bay_when_own_type_is_full() {
+        ParkingLot parkingLot = new ParkingLot(mixedLayout());
+        parkingLot.park(new Car(BayType.COMPACT));
+
+        ParkingTicket second = parkingLot.park(new Car(BayType.COMPACT));
+        ParkingTicket third = parkingLot.park(new Car(BayType.COMPACT));
+
+        assertEquals(1, second.getSlotNumber());
+        assertEquals(2, third.getSlotNumber());
+        assertEquals(0, parkingLot.getAvailableCount(BayType.COMPACT));
+        assertEquals(1, parkingLot.getAvailableCount(BayType.EV_CHARGING));
+    }
+
+    @Test
+    void should_not_park_in_smaller_or_charging_bay() {
+        ParkingLot parkingLot = new ParkingLot(mixedLayout());
+        parkingLot.park(new Car(BayType.OVERSIZE));
+
+        assertNull(parkingLot.tryPark(new Car(BayType.OVERSIZE)));
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingLot.park(new Car(BayType.OVERSIZE)));
+        assertEquals("No available position.", exception.getMessage());
+        assertEquals(3, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_count_available_positions_per_bay_type() {
+        ParkingLot parkingLot = new ParkingLot(mixedLayout());
+
+        assertEquals(3, parkingLot.getCapacity(BayType.COMPACT));
+        assertEquals(2, parkingLot.getCapacity(BayType.STANDARD));
+        assertEquals(1, parkingLot.getCapacity(BayType.OVERSIZE));
+        assertEquals(3, parkingLot.getCapacity(BayType.EV_CHARGING));
+
+        ParkingTicket ticket = parkingLot.park(new Car(BayType.STANDARD));
+        assertEquals(1, parkingLot.getAvailableCount(BayType.STANDARD));
+        parkingLot.fetch(ticket);
+        assertEquals(2, parkingLot.getAvailableCount(BayType.STANDARD));
+    }
+
+    @Test
+    void should_give_each_type_its_own_bays_before_falling_back_in_batch() {
+        ParkingLot parkingLot = new ParkingLot(new BayLayout().with(BayType.COMPACT, 1).with(BayType.STANDARD, 1));
+
+        List<ParkingTicket> tickets = parkingLot.parkAll(Arrays.asList(
+                new Car(BayType.COMPACT), new Car(BayType.COMPACT), new Car(BayType.STANDARD)));
+
+        assertEquals(0, tickets.get(0).getSlotNumber());
+        assertNull(tickets.get(1));
+        assertEquals(1, tickets.get(2).getSlotNumber());
+    }
+
+    @Test
+    void should_hold_bay_for_type_and_keep_hold_for_car_that_does_not_fit() {
+        ParkingLot parkingLot = new ParkingLot(new BayLayout().with(BayType.COMPACT, 1).with(BayType.OVERSIZE, 1));
+        ParkingHold hold = parkingLot.hold(BayType.COMPACT, 1, TimeUnit.MINUTES);
+        assertEquals(BayType.COMPACT, hold.getBayType());
+
+        ParkingTicket oversize = parkingLot.park(new Car(BayType.OVERSIZE), hold);
+
+        assertEquals(1, oversize.getSlotNumber());
+        assertTrue(hold.isActive());
+        assertEquals(0, parkingLot.park(new Car(BayType.COMPACT), hold).getSlotNumber());
+        assertFalse(hold.isActive());
+    }
+
+    @Test
+    void should_let_legacy_lot_accept_every_type_but_charging_only_on_standard_bays() {
+        ParkingLot parkingLot = new ParkingLot(2);
+
+        assertNotNull(parkingLot.park(new Car(BayType.COMPACT)));
+        assertNotNull(parkingLot.park(new Car(BayType.EV_CHARGING)));
+        assertTrue(parkingLot.isFull());
+        assertEquals(2, parkingLot.getCapacity(BayType.STANDARD));
+        assertEquals(0, parkingLot.getCapacity(BayType.OVERSIZE));
+    }
+
+    @Test
+    void should_pick_first_lot_with_bay_for_type_when_standard_boy_parks() {
+        ParkingLot noCharger = new ParkingLot(new BayLayout().with(BayType.COMPACT, 2));
+        ParkingLot withCharger = new ParkingLot(new BayLayout().with(BayType.EV_CHARGING, 1));
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(noCharger, withCharger));
+
+        ParkingTicket ev = parkingBoy.park(new Car(BayType.EV_CHARGING));
+        ParkingTicket compact = parkingBoy.park(new Car(BayType.COMPACT));
+
+        assertSame(withCharger, ev.getParkingLot());
+        assertSame(noCharger, compact.getParkingLot());
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingBoy.park(new Car(BayType.EV_CHARGING)));
+        assertEquals("No available position.", exception.getMessage());
+    }
+
+    @Test
+    void should_rank_lots_by_available_bays_for_type_when_smart_boy_parks() {
+        ParkingLot manyCompact = new ParkingLot(new BayLayout().with(BayType.COMPACT, 5).with(BayType.OVERSIZE, 1));
+        ParkingLot fewCompact = new ParkingLot(new BayLayout().with(BayType.OVERSIZE, 3));
+        SmartParkingBoy parkingBoy = new SmartParkingBoy(Arrays.asList(manyCompact, fewCompact));
+
+        assertSame(manyCompact, parkingBoy.park(new Car(BayType.COMPACT)).getParkingLot());
+        assertSame(fewCompact, parkingBoy.park(new Car(BayType.OVERSIZE)).getParkingLot());
+        assertSame(fewCompact, parkingBoy.park(new Car(BayType.OVERSIZE)).getParkingLot());
+        assertSame(manyCompact, parkingBoy.park(new Car(BayType.OVERSIZE)).getParkingLot());
+    }
+
+    @Test
+    void should_rank_lots_by_vacancy_rate_for_type_when_super_boy_parks() {
+        ParkingLot mostlyCompact = new ParkingLot(new BayLayout().with(BayType.COMPACT, 8).with(BayType.EV_CHARGING, 2));
+        ParkingLot allCharging = new ParkingLot(new BayLayout().with(BayType.EV_CHARGING, 4));
+        mostlyCompact.park(new Car(BayType.EV_CHARGING));
+        allCharging.park(new Car(BayType.EV_CHARGING));
+        SuperParkingBoy parkingBoy = new SuperParkingBoy(Arrays.asList(mostlyCompact, allCharging));
+
+        assertSame(allCharging, parkingBoy.park(new Car(BayType.EV_CHARGING)).getParkingLot());
+        assertSame(mostlyCompact, parkingBoy.park(new Car(BayType.COMPACT)).getParkingLot());
+    }
+
+    @Test
+    void should_spread_batch_of_mixed_types_over_lots_that_have_matching_bays() {
+        ParkingLot compactLot = new ParkingLot(new BayLayout().with(BayType.COMPACT, 2));
+        ParkingLot oversizeLot = new ParkingLot(new BayLayout().with(BayType.OVERSIZE, 1));
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(compactLot, oversizeLot));
+
+        List<ParkingTicket> tickets = parkingBoy.parkAll(Arrays.asList(
+                new Car(BayType.OVERSIZE), new Car(BayType.COMPACT), new Car(BayType.OVERSIZE)));
+
+        assertSame(oversizeLot, tickets.get(0).getParkingLot());
+        assertSame(compactLot, tickets.get(1).getParkingLot());
+        assertNull(tickets.get(2));
+    }
+
+    @Test
+    void should_reject_car_without_bay_type() {
+        assertThrows(IllegalArgumentException.class, () -> new Car((BayType) null));
+    }
+}
@@ -0,0 +1,120 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BillingPipelineTest {
+
+    private static final BillingTariff TARIFF = new BillingTariff()
+            .upTo(Duration.ofMinutes(15), 0)
+            .upTo(Duration.ofHours(3), 500)
+            .beyond(300);
+
+    @Test
+    void should_charge_each_started_hour_by_tier() {
+        assertEquals(0, TARIFF.feeCents(TimeUnit.MINUTES.toNanos(10)));
+        assertEquals(500, TARIFF.feeCents(TimeUnit.MINUTES.toNanos(16)));
+        assertEquals(1500, TARIFF.feeCents(TimeUnit.HOURS.toNanos(3)));
+        assertEquals(1800, TARIFF.feeCents(TimeUnit.HOURS.toNanos(3) + 1));
+    }
+
+    @Test
+    void should_reject_tiers_out_of_order() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BillingTariff().upTo(Duration.ofHours(2), 100).upTo(Duration.ofHours(1), 100));
+    }
+
+    @Test
+    void should_stamp_ticket_with_issue_time() {
+        long before = System.nanoTime();
+        ParkingTicket ticket = new ParkingLot(1).park(new Car());
+
+        assertTrue(ticket.getIssuedAtNanos() - before >= 0);
+    }
+
+    @Test
+    void should_aggregate_revenue_and_dwell_per_lot() {
+        ParkingLot first = new ParkingLot(10);
+        ParkingLot second = new ParkingLot(10);
+        BillingTariff tariff = new BillingTariff().upTo(Duration.ofHours(1), 200);
+        try (BillingPipeline billing = new BillingPipeline(tariff, 4)) {
+            billing.attach(first);
+            billing.attach(second);
+            List<ParkingTicket> tickets = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                tickets.add(first.park(new Car()));
+            }
+            tickets.add(second.park(new Car()));
+            for (ParkingTicket ticket : tickets) {
+                ticket.getParkingLot().fetch(ticket);
+            }
+            billing.awaitBilled();
+
+            assertEquals(6, billing.getBilling(first).getStays());
+            assertEquals(1200, billing.getBilling(first).getRevenueCents());
+            assertEquals(1, billing.getBilling(second).getStays());
+            assertEquals(200, billing.getBilling(second).getRevenueCents());
+            assertTrue(billing.getBilling(first).getMaxDwellNanos() > 0);
+        }
+    }
+
+    @Test
+    void should_stop_billing_after_close() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        BillingPipeline billing = new BillingPipeline(new BillingTariff().beyond(100));
+        billing.attach(parkingLot);
+        billing.close();
+
+        parkingLot.fetch(parkingLot.park(new Car()));
+
+        assertEquals(0, billing.getBilling(parkingLot).getStays());
+    }
+
+    @Test
+    void should_finish_billing_when_closed_while_gates_keep_fetching() throws InterruptedException {
+        ParkingLot parkingLot = new ParkingLot(64);
+        BillingPipeline billing = new BillingPipeline(new BillingTariff().beyond(100), 16);
+        billing.attach(parkingLot);
+        CountDownLatch closed = new CountDownLatch(1);
+        Thread[] gates = new Thread[4];
+        for (int i = 0; i < gates.length; i++) {
+            gates[i] = new Thread(() -> {
+                for (int round = 0; round < 1000; round++) {
+                    parkingLot.fetch(parkingLot.park(new Car()));
+                }
+                closed.countDown();
+                // 关闭之后仍在送来的记录被丢弃，缓冲区再小也不会卡住取车线程
+                for (int round = 0; round < 1000; round++) {
+                    billing.onStayCompleted(parkingLot, 0, 0, 1);
+                }
+                billing.awaitBilled();
+            });
+            gates[i].start();
+        }
+        closed.await();
+        billing.close();
+        for (Thread gate : gates) {
+            gate.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse(gate.isAlive());
+        }
+        // 计费线程退出之后才到达的记录同样丢弃，等待计费立即返回
+        Thread late = new Thread(() -> {
+            billing.onStayCompleted(parkingLot, 0, 0, 1);
+            billing.awaitBilled();
+        });
+        late.start();
+        late.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(late.isAlive());
+
+        LotBilling lotBilling = billing.getBilling(parkingLot);
+        assertTrue(lotBilling.getStays() >= 1000);
+        assertEquals(lotBilling.getStays() * 100, lotBilling.getRevenueCents());
+    }
+}
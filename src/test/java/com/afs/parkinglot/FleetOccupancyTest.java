@@ -0,0 +1,74 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FleetOccupancyTest {
+
+    @Test
+    void should_keep_fleet_totals_up_to_date_when_cars_park_and_leave() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(3);
+        lot2.park(new Car());
+        FleetOccupancy fleet = new FleetOccupancy();
+        fleet.track(lot1);
+        fleet.track(lot2);
+        assertEquals(4, fleet.getCapacity());
+        assertEquals(3, fleet.getAvailableCount());
+
+        ParkingTicket ticket = lot1.park(new Car());
+        assertEquals(2, fleet.getAvailableCount());
+        assertEquals(1, fleet.getFullParkingLots().size());
+        assertTrue(fleet.getFullParkingLots().contains(lot1));
+
+        lot1.fetch(ticket);
+        assertEquals(3, fleet.getAvailableCount());
+        assertTrue(fleet.getFullParkingLots().isEmpty());
+    }
+
+    @Test
+    void should_count_batches_and_stop_after_untrack() {
+        ParkingLot parkingLot = new ParkingLot(2);
+        FleetOccupancy fleet = new FleetOccupancy();
+        fleet.track(parkingLot);
+
+        List<ParkingTicket> tickets = parkingLot.parkAll(Arrays.asList(new Car(), new Car(), new Car()));
+        assertEquals(0, fleet.getAvailableCount());
+        assertTrue(fleet.getFullParkingLots().contains(parkingLot));
+
+        fleet.untrack(parkingLot);
+        parkingLot.fetchAll(tickets);
+        assertEquals(0, fleet.getAvailableCount());
+        assertEquals(0, fleet.getCapacity());
+        assertTrue(fleet.getFullParkingLots().isEmpty());
+    }
+
+    @Test
+    void should_notify_full_and_not_full_once_per_transition() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        int[] transitions = new int[2];
+        parkingLot.addListener(new ParkingLotListener() {
+            @Override
+            public void onFull(ParkingLot lot) {
+                transitions[0]++;
+            }
+
+            @Override
+            public void onNotFull(ParkingLot lot) {
+                transitions[1]++;
+            }
+        });
+
+        ParkingTicket ticket = parkingLot.park(new Car());
+        parkingLot.tryPark(new Car());
+        parkingLot.fetch(ticket);
+        parkingLot.tryFetch(ticket);
+
+        assertEquals(1, transitions[0]);
+        assertEquals(1, transitions[1]);
+    }
+}
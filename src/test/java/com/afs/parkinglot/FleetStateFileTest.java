@@ -0,0 +1,206 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FleetStateFileTest {
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("fleet-state");
+        file = directory.resolve("fleet.state");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void should_fetch_cars_by_old_ticket_ids_after_restart() throws IOException {
+        BayLayout bayLayout = new BayLayout().with(BayType.STANDARD, 2).with(BayType.EV_CHARGING, 1);
+        long fetchedId;
+        long standardId;
+        long chargingId;
+        int lotId;
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.addParkingLot(bayLayout, SlotAllocationPolicy.NEXT_FREE);
+            lotId = parkingLot.getId();
+            StandardParkingBoy parkingBoy = new StandardParkingBoy();
+            parkingBoy.attach(fleetState);
+            ParkingTicket fetched = parkingBoy.park(new Car("粤A00001"));
+            parkingBoy.fetch(fetched);
+            fetchedId = fetched.getId();
+            standardId = parkingBoy.park(new Car("粤A00002")).getId();
+            chargingId = parkingBoy.park(new Car("粤A00003", BayType.EV_CHARGING)).getId();
+        }
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            StandardParkingBoy parkingBoy = new StandardParkingBoy();
+            parkingBoy.attach(fleetState);
+            ParkingLot parkingLot = parkingBoy.getManagedParkingLots().get(0);
+
+            assertEquals(lotId, parkingLot.getId());
+            assertEquals(bayLayout, parkingLot.getBayLayout());
+            assertEquals(SlotStorage.OFF_HEAP, parkingLot.getSlotStorage());
+            assertEquals(1, parkingLot.getAvailableCount());
+            Car charging = parkingBoy.fetch(parkingBoy.ticketOf(chargingId));
+            assertEquals("粤A00003", charging.getPlate());
+            assertEquals(BayType.EV_CHARGING, charging.getBayType());
+            assertEquals("粤A00002", parkingBoy.fetch(parkingBoy.ticketOf(standardId)).getPlate());
+            ParkingException reused = assertThrows(ParkingException.class,
+                    () -> parkingBoy.fetch(parkingBoy.ticketOf(fetchedId)));
+            assertEquals("Unrecognized parking ticket.", reused.getMessage());
+            assertEquals(3, parkingLot.getAvailableCount());
+        }
+    }
+
+    @Test
+    void should_reject_parked_plate_and_locate_car_after_restart() throws IOException {
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            fleetState.addParkingLot(new BayLayout().with(BayType.STANDARD, 2), SlotAllocationPolicy.NEXT_FREE);
+            StandardParkingBoy parkingBoy = new StandardParkingBoy();
+            parkingBoy.attach(fleetState);
+            parkingBoy.park(new Car("粤A00001"));
+        }
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            StandardParkingBoy parkingBoy = new StandardParkingBoy();
+            parkingBoy.attach(fleetState);
+
+            ParkingException exception = assertThrows(ParkingException.class,
+                    () -> parkingBoy.park(new Car("粤A00001")));
+            assertEquals("Car already parked.", exception.getMessage());
+            assertNotNull(parkingBoy.locate("粤A00001"));
+        }
+    }
+
+    @Test
+    void should_report_saved_counts_before_lot_is_loaded() throws IOException {
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.addParkingLot(BayLayout.standard(4), SlotAllocationPolicy.NEXT_FREE);
+            parkingLot.parkAll(Arrays.asList(new Car(), new Car(), new Car()));
+        }
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.getParkingLots().get(0);
+            assertEquals(1, parkingLot.getAvailableCount());
+
+            ParkingTicket ticket = parkingLot.park(new Car());
+            assertTrue(parkingLot.isFull());
+            assertEquals(3, ParkingTicket.slotOf(ticket.getId()));
+        }
+    }
+
+    @Test
+    void should_not_save_holds_in_counts() throws IOException {
+        ParkingHold hold;
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.addParkingLot(BayLayout.standard(4), SlotAllocationPolicy.NEXT_FREE);
+            parkingLot.park(new Car());
+            hold = parkingLot.hold(1, TimeUnit.MINUTES);
+        }
+        hold.cancel();
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.getParkingLots().get(0);
+            FleetOccupancy fleet = new FleetOccupancy();
+            fleet.track(parkingLot);
+            assertEquals(3, parkingLot.getAvailableCount());
+            assertEquals(3, fleet.getAvailableCount());
+
+            parkingLot.park(new Car());
+            assertEquals(2, parkingLot.getAvailableCount());
+            assertEquals(2, fleet.getAvailableCount());
+        }
+    }
+
+    @Test
+    void should_correct_fleet_occupancy_when_loaded_lot_differs_from_saved_counts() throws IOException {
+        ParkingLot original;
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            original = fleetState.addParkingLot(BayLayout.standard(4), SlotAllocationPolicy.NEXT_FREE);
+            original.park(new Car());
+        }
+        // 关闭之后停的车写进了车位记录，但没有计入保存的计数
+        original.park(new Car());
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot parkingLot = fleetState.getParkingLots().get(0);
+            FleetOccupancy fleet = new FleetOccupancy();
+            fleet.track(parkingLot);
+            assertEquals(3, fleet.getAvailableCount());
+
+            parkingLot.park(new Car());
+            parkingLot.park(new Car());
+            assertEquals(0, parkingLot.getAvailableCount());
+            assertEquals(0, fleet.getAvailableCount());
+            assertEquals(Collections.singleton(parkingLot), fleet.getFullParkingLots());
+        }
+    }
+
+    @Test
+    void should_recount_lots_when_file_was_not_closed() throws IOException {
+        FleetStateFile crashed = FleetStateFile.open(file);
+        ParkingLot parkingLot = crashed.addParkingLot(BayLayout.standard(3), SlotAllocationPolicy.NEXT_FREE);
+        long ticketId = parkingLot.park(new Car("粤B00001")).getId();
+        parkingLot.park(new Car());
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            ParkingLot recovered = fleetState.getParkingLots().get(0);
+            assertEquals(1, recovered.getAvailableCount());
+            assertEquals("粤B00001", recovered.fetch(new ParkingTicket(ticketId, recovered)).getPlate());
+        }
+        crashed.close();
+    }
+
+    @Test
+    void should_keep_lots_added_after_restart_apart() throws IOException {
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            fleetState.addParkingLot(BayLayout.standard(2), SlotAllocationPolicy.NEXT_FREE).park(new Car("FIRST"));
+        }
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            fleetState.addParkingLot(BayLayout.standard(2), SlotAllocationPolicy.NEXT_FREE).park(new Car("SECOND"));
+        }
+
+        try (FleetStateFile fleetState = FleetStateFile.open(file)) {
+            List<ParkingLot> parkingLots = fleetState.getParkingLots();
+            assertEquals(2, parkingLots.size());
+            assertNotEquals(parkingLots.get(0).getId(), parkingLots.get(1).getId());
+            assertEquals("FIRST", parkingLots.get(0).parkedCar(firstParked(parkingLots.get(0))).getPlate());
+            assertEquals("SECOND", parkingLots.get(1).parkedCar(firstParked(parkingLots.get(1))).getPlate());
+        }
+    }
+
+    @Test
+    void should_reject_file_that_is_not_fleet_state() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        IOException exception = assertThrows(IOException.class, () -> FleetStateFile.open(file));
+        assertEquals("Not a fleet state file", exception.getMessage());
+    }
+
+    private static long firstParked(ParkingLot parkingLot) {
+        long[] ticketIds = new long[1];
+        assertEquals(1, parkingLot.collectParkedTickets(0, ticketIds));
+        return ticketIds[0];
+    }
+}
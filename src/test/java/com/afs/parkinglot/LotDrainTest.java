@@ -0,0 +1,173 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LotDrainTest {
+
+    @Test
+    void should_stop_admissions_but_keep_holds_when_lot_drained() {
+        ParkingLot parkingLot = new ParkingLot(3);
+        ParkingHold hold = parkingLot.hold(1, TimeUnit.MINUTES);
+        parkingLot.drain();
+
+        assertTrue(parkingLot.isDraining());
+        assertNull(parkingLot.tryPark(new Car()));
+        assertNull(parkingLot.tryHold(1, TimeUnit.MINUTES));
+        assertEquals(Arrays.asList(null, null), parkingLot.parkAll(Arrays.asList(new Car(), new Car())));
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingLot.park(new Car()));
+        assertEquals("No available position.", exception.getMessage());
+        assertNotNull(parkingLot.park(new Car(), hold));
+    }
+
+    @Test
+    void should_park_elsewhere_and_fetch_old_tickets_until_drained() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(2);
+        ParkingLot other = new ParkingLot(2);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other));
+        ParkingTicket first = parkingBoy.park(new Car());
+        ParkingTicket second = parkingBoy.park(new Car());
+
+        LotDrain drain = parkingBoy.drainParkingLot(draining);
+
+        assertSame(other, parkingBoy.park(new Car()).getParkingLot());
+        assertNotNull(parkingBoy.fetch(first));
+        assertFalse(drain.isDrained());
+        assertNotNull(parkingBoy.fetch(second));
+        assertTrue(drain.awaitDrained(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(other), parkingBoy.getManagedParkingLots());
+        assertEquals(0, drain.getMovedCount());
+    }
+
+    @Test
+    void should_finish_at_once_when_draining_empty_lot() {
+        ParkingLot empty = new ParkingLot(2);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(empty, new ParkingLot(1)));
+
+        assertTrue(parkingBoy.drainParkingLot(empty).isDrained());
+        assertFalse(parkingBoy.getManagedParkingLots().contains(empty));
+    }
+
+    @Test
+    void should_move_parked_cars_and_forward_old_tickets() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(5);
+        ParkingLot other = new ParkingLot(10);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other));
+        List<ParkingTicket> tickets = new ArrayList<>();
+        List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cars.add(new Car("G" + i));
+            tickets.add(parkingBoy.park(cars.get(i)));
+        }
+
+        LotDrain drain = parkingBoy.drainParkingLot(draining, 2, 1, TimeUnit.MILLISECONDS);
+
+        assertTrue(drain.awaitDrained(5, TimeUnit.SECONDS));
+        assertEquals(5, drain.getMovedCount());
+        assertEquals(5, other.getAvailableCount());
+        assertSame(other, parkingBoy.locate("G3").getParkingLot());
+        assertSame(cars.get(3), parkingBoy.fetch(tickets.get(3)));
+        assertNull(parkingBoy.locate("G3"));
+        assertEquals(Arrays.asList(cars.get(0), null, cars.get(4)),
+                parkingBoy.fetchAll(Arrays.asList(tickets.get(0), tickets.get(3), tickets.get(4))));
+        ParkingException reused = assertThrows(ParkingException.class, () -> parkingBoy.fetch(tickets.get(0)));
+        assertEquals("Unrecognized parking ticket.", reused.getMessage());
+    }
+
+    @Test
+    void should_wait_for_room_before_moving_more_cars() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(2);
+        ParkingLot other = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other));
+        ParkingTicket first = parkingBoy.park(new Car());
+        parkingBoy.park(new Car());
+
+        LotDrain drain = parkingBoy.drainParkingLot(draining, 10, 1, TimeUnit.MILLISECONDS);
+        assertFalse(drain.awaitDrained(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, drain.getMovedCount());
+        assertTrue(other.isFull());
+
+        assertNotNull(parkingBoy.fetch(first));
+        assertTrue(drain.awaitDrained(5, TimeUnit.SECONDS));
+        assertEquals(2, drain.getMovedCount());
+    }
+
+    @Test
+    void should_keep_moving_batch_when_owner_fetched_car_just_before_move() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(3);
+        ParkingLot other = new ParkingLot(3);
+        AtomicInteger fetchedByOwner = new AtomicInteger();
+        // 第一辆车在迁车线程看到它之后、迁走之前被车主取走
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other)) {
+            @Override
+            ParkingTicket relocate(ParkingLot source, long ticketId, BayType bayType) {
+                if (fetchedByOwner.compareAndSet(0, 1)) {
+                    source.fetch(new ParkingTicket(ticketId, source));
+                }
+                return super.relocate(source, ticketId, bayType);
+            }
+        };
+        parkingBoy.parkAll(Arrays.asList(new Car(), new Car(), new Car()));
+
+        LotDrain drain = parkingBoy.drainParkingLot(draining, 10, 1, TimeUnit.HOURS);
+
+        assertTrue(drain.awaitDrained(5, TimeUnit.SECONDS));
+        assertEquals(2, drain.getMovedCount());
+        assertEquals(1, other.getAvailableCount());
+    }
+
+    @Test
+    void should_hand_every_car_back_once_when_fetched_during_moves() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(2000);
+        ParkingLot other = new ParkingLot(2000);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other));
+        List<ParkingTicket> tickets = parkingBoy.parkAll(new ArrayList<>(Collections.nCopies(2000, new Car())));
+
+        AtomicInteger fetched = new AtomicInteger();
+        Thread gate = new Thread(() -> {
+            for (ParkingTicket ticket : tickets) {
+                if (parkingBoy.tryFetch(ticket) != null) {
+                    fetched.incrementAndGet();
+                }
+            }
+        });
+        LotDrain drain = parkingBoy.drainParkingLot(draining, 50, 0, TimeUnit.MILLISECONDS);
+        gate.start();
+        gate.join();
+
+        assertEquals(2000, fetched.get());
+        assertTrue(drain.awaitDrained(5, TimeUnit.SECONDS));
+        assertEquals(2000, other.getAvailableCount());
+    }
+
+    @Test
+    void should_bill_moved_car_once_from_its_original_park_time() throws InterruptedException {
+        ParkingLot draining = new ParkingLot(1);
+        ParkingLot other = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(draining, other));
+        try (BillingPipeline billing = new BillingPipeline(new BillingTariff().beyond(100))) {
+            billing.attach(draining);
+            billing.attach(other);
+            ParkingTicket ticket = parkingBoy.park(new Car());
+
+            LotDrain drain = parkingBoy.drainParkingLot(draining, 1, 1, TimeUnit.MILLISECONDS);
+            assertTrue(drain.awaitDrained(5, TimeUnit.SECONDS));
+            long drainedAt = System.nanoTime();
+            assertNotNull(parkingBoy.fetch(ticket));
+            billing.awaitBilled();
+
+            assertEquals(0, billing.getBilling(draining).getStays());
+            assertEquals(1, billing.getBilling(other).getStays());
+            assertEquals(100, billing.getBilling(other).getRevenueCents());
+            assertTrue(billing.getBilling(other).getMaxDwellNanos() >= drainedAt - ticket.getIssuedAtNanos());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyForecasterTest {
+
+    @Test
+    void should_keep_only_latest_samples_in_history() {
+        ParkingLot parkingLot = new ParkingLot(10);
+        OccupancyForecaster forecaster = new OccupancyForecaster(1, TimeUnit.SECONDS, 3, 0.5, 0.3);
+        forecaster.track(parkingLot);
+
+        for (int i = 0; i < 5; i++) {
+            parkingLot.park(new Car());
+            forecaster.sample();
+        }
+
+        assertArrayEquals(new int[]{3, 4, 5}, forecaster.getHistory(parkingLot).toArray());
+        assertEquals(5, forecaster.getHistory(parkingLot).latest());
+    }
+
+    @Test
+    void should_predict_filling_lot_from_trend() {
+        ParkingLot parkingLot = new ParkingLot(100);
+        OccupancyForecaster forecaster = new OccupancyForecaster(1, TimeUnit.SECONDS, 60, 0.8, 0.8);
+        forecaster.track(parkingLot);
+
+        for (int i = 0; i < 10; i++) {
+            parkingLot.parkAll(Collections.nCopies(5, new Car()));
+            forecaster.sample();
+        }
+
+        int predicted = forecaster.predictAvailableCount(parkingLot, 4, TimeUnit.SECONDS);
+        assertTrue(predicted < 50 && predicted >= 28, "predicted " + predicted);
+        long untilFull = forecaster.predictNanosUntilFull(parkingLot);
+        assertTrue(untilFull > TimeUnit.SECONDS.toNanos(8) && untilFull < TimeUnit.SECONDS.toNanos(13), "until full " + untilFull);
+    }
+
+    @Test
+    void should_not_predict_fill_up_for_steady_lot() {
+        ParkingLot parkingLot = new ParkingLot(10);
+        parkingLot.park(new Car());
+        OccupancyForecaster forecaster = new OccupancyForecaster(1, TimeUnit.SECONDS);
+        forecaster.track(parkingLot);
+        forecaster.sample();
+        forecaster.sample();
+
+        assertEquals(Long.MAX_VALUE, forecaster.predictNanosUntilFull(parkingLot));
+        assertEquals(9, forecaster.predictAvailableCount(parkingLot, 1, TimeUnit.HOURS));
+    }
+}
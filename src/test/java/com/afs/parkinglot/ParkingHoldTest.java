@@ -0,0 +1,92 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingHoldTest {
+
+    @Test
+    void should_count_hold_against_available_count_and_park_on_it() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        ParkingHold hold = parkingLot.hold(1, TimeUnit.MINUTES);
+
+        assertEquals(0, parkingLot.getAvailableCount());
+        assertNull(parkingLot.tryPark(new Car()));
+        ParkingTicket ticket = parkingLot.park(new Car(), hold);
+
+        assertNotNull(ticket);
+        assertFalse(hold.isActive());
+        assertEquals(0, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_return_position_when_hold_cancelled() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        ParkingHold hold = parkingLot.hold(1, TimeUnit.MINUTES);
+
+        assertTrue(hold.cancel());
+        assertFalse(hold.cancel());
+        assertEquals(1, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_throw_when_holding_in_full_lot() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        parkingLot.park(new Car());
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingLot.hold(1, TimeUnit.MINUTES));
+        assertEquals("No available position.", exception.getMessage());
+    }
+
+    @Test
+    void should_release_hold_automatically_when_car_does_not_arrive() throws InterruptedException {
+        ParkingLot parkingLot = new ParkingLot(1);
+        FleetOccupancy fleet = new FleetOccupancy();
+        fleet.track(parkingLot);
+        ParkingHold hold = parkingLot.hold(20, TimeUnit.MILLISECONDS);
+        assertEquals(0, fleet.getAvailableCount());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hold.isActive() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertFalse(hold.isActive());
+        assertEquals(1, parkingLot.getAvailableCount());
+        assertEquals(1, fleet.getAvailableCount());
+        assertNotNull(parkingLot.park(new Car(), hold));
+    }
+
+    @Test
+    void should_let_smart_parking_boy_treat_held_positions_as_occupied() {
+        ParkingLot first = new ParkingLot(3);
+        ParkingLot second = new ParkingLot(2);
+        first.hold(1, TimeUnit.MINUTES);
+        first.hold(1, TimeUnit.MINUTES);
+        SmartParkingBoy parkingBoy = new SmartParkingBoy(Arrays.asList(first, second));
+
+        parkingBoy.park(new Car());
+
+        assertEquals(1, second.getAvailableCount());
+    }
+
+    @Test
+    void should_hold_through_parking_boy_and_park_in_held_lot() {
+        ParkingLot first = new ParkingLot(1);
+        ParkingLot second = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(first, second));
+        ParkingHold hold = parkingBoy.hold(1, TimeUnit.MINUTES);
+
+        parkingBoy.park(new Car());
+        ParkingTicket ticket = parkingBoy.park(new Car(), hold);
+
+        assertSame(first, hold.getParkingLot());
+        assertTrue(first.isFull());
+        assertTrue(second.isFull());
+        assertNotNull(parkingBoy.fetch(ticket));
+    }
+}
@@ -0,0 +1,210 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingJournalTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("parking-journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void should_restore_parked_cars_when_reopen_journal_after_restart() throws IOException {
+        ParkingTicket kept;
+        ParkingTicket fetched;
+        int lotId;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(3);
+            lotId = parkingLot.getId();
+            journal.attach(parkingLot);
+            kept = parkingLot.park(new Car());
+            fetched = parkingLot.park(new Car());
+            parkingLot.fetch(fetched);
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            List<ParkingLot> parkingLots = journal.getParkingLots();
+            assertEquals(1, parkingLots.size());
+            ParkingLot restored = parkingLots.get(0);
+            assertEquals(lotId, restored.getId());
+            assertEquals(3, restored.getCapacity());
+            assertEquals(2, restored.getAvailableCount());
+
+            assertNull(restored.tryFetch(new ParkingTicket(fetched.getId(), restored)));
+            assertNotNull(restored.fetch(new ParkingTicket(kept.getId(), restored)));
+            assertEquals(3, restored.getAvailableCount());
+        }
+    }
+
+    @Test
+    void should_restore_car_put_back_after_failed_move() throws IOException {
+        long ticketId;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(2);
+            journal.attach(parkingLot);
+            ticketId = parkingLot.park(new Car("粤C00001")).getId();
+            parkingLot.moveBack(ticketId, parkingLot.moveOut(ticketId));
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot restored = journal.getParkingLots().get(0);
+            assertEquals(1, restored.getAvailableCount());
+            assertEquals("粤C00001", restored.fetch(new ParkingTicket(ticketId, restored)).getPlate());
+        }
+    }
+
+    @Test
+    void should_restore_every_parked_car_after_concurrent_park_and_fetch() throws Exception {
+        int gateCount = 8;
+        for (int restart = 0; restart < 5; restart++) {
+            List<Long> kept = new CopyOnWriteArrayList<>();
+            try (ParkingJournal journal = ParkingJournal.open(directory)) {
+                ParkingLot parkingLot;
+                if (journal.getParkingLots().isEmpty()) {
+                    parkingLot = new ParkingLot(gateCount, SlotAllocationPolicy.NEAREST_TO_ENTRANCE);
+                    journal.attach(parkingLot);
+                } else {
+                    parkingLot = journal.getParkingLots().get(0);
+                    assertEquals(gateCount, parkingLot.getAvailableCount());
+                }
+                ExecutorService gates = Executors.newFixedThreadPool(gateCount);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> results = new ArrayList<>();
+                for (int i = 0; i < gateCount; i++) {
+                    results.add(gates.submit(() -> {
+                        start.await();
+                        // 车位数等于闸口数，每个闸口总能停下；最小编号优先让刚腾出的车位立即被别的闸口占用
+                        for (int round = 0; round < 5000; round++) {
+                            parkingLot.fetch(parkingLot.park(new Car()));
+                        }
+                        kept.add(parkingLot.park(new Car()).getId());
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> result : results) {
+                    result.get();
+                }
+                gates.shutdown();
+            }
+
+            try (ParkingJournal journal = ParkingJournal.open(directory)) {
+                ParkingLot restored = journal.getParkingLots().get(0);
+                assertEquals(0, restored.getAvailableCount());
+                for (long ticketId : kept) {
+                    assertNotNull(restored.fetch(new ParkingTicket(ticketId, restored)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void should_continue_journaling_restored_lots_across_several_restarts() throws IOException {
+        ParkingTicket first;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(2);
+            parkingLot.park(new Car());
+            journal.attach(parkingLot);
+            first = parkingLot.park(new Car());
+            journal.sync();
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot restored = journal.getParkingLots().get(0);
+            assertTrue(restored.isFull());
+            restored.fetch(new ParkingTicket(first.getId(), restored));
+            journal.snapshot();
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot restored = journal.getParkingLots().get(0);
+            assertEquals(1, restored.getAvailableCount());
+            assertNull(restored.tryFetch(new ParkingTicket(first.getId(), restored)));
+        }
+    }
+
+    @Test
+    void should_restore_bay_layout_across_replay_and_snapshot() throws IOException {
+        BayLayout bayLayout = new BayLayout().with(BayType.COMPACT, 2).with(BayType.EV_CHARGING, 1);
+        ParkingTicket charging;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(bayLayout);
+            journal.attach(parkingLot);
+            charging = parkingLot.park(new Car(BayType.EV_CHARGING));
+        }
+
+        for (int restart = 0; restart < 2; restart++) {
+            try (ParkingJournal journal = ParkingJournal.open(directory)) {
+                ParkingLot restored = journal.getParkingLots().get(0);
+                assertEquals(bayLayout, restored.getBayLayout());
+                assertEquals(0, restored.getAvailableCount(BayType.EV_CHARGING));
+                assertEquals(2, restored.getAvailableCount(BayType.COMPACT));
+                assertTrue(restored.isSlotOccupied(charging.getSlotNumber()));
+            }
+        }
+    }
+
+    @Test
+    void should_restore_plates_and_reject_duplicate_plate_after_restart() throws IOException {
+        ParkingTicket plated;
+        ParkingTicket charging;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(new BayLayout().with(BayType.STANDARD, 2).with(BayType.EV_CHARGING, 1));
+            journal.attach(parkingLot);
+            StandardParkingBoy parkingBoy = new StandardParkingBoy(parkingLot);
+            plated = parkingBoy.park(new Car("粤A12345"));
+            charging = parkingBoy.park(new Car("DIPLOMATIC-CORPS-0001", BayType.EV_CHARGING));
+        }
+
+        // 第一次从日志段重放，第二次从快照恢复
+        for (int restart = 0; restart < 2; restart++) {
+            try (ParkingJournal journal = ParkingJournal.open(directory)) {
+                StandardParkingBoy parkingBoy = new StandardParkingBoy();
+                parkingBoy.attach(journal);
+                ParkingLot restored = journal.getParkingLots().get(0);
+
+                ParkingException duplicate = assertThrows(ParkingException.class,
+                        () -> parkingBoy.park(new Car("粤A12345")));
+                assertEquals(ParkingRejection.DUPLICATE_CAR.getMessage(), duplicate.getMessage());
+                assertEquals(plated.getSlotNumber(), parkingBoy.locate("粤A12345").getSlotNumber());
+                Car car = restored.parkedCar(charging.getId());
+                assertEquals("DIPLOMATIC-CORPS-0001", car.getPlate());
+                assertEquals(BayType.EV_CHARGING, car.getBayType());
+            }
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            StandardParkingBoy parkingBoy = new StandardParkingBoy();
+            parkingBoy.attach(journal);
+            assertEquals("粤A12345", parkingBoy.fetch(parkingBoy.ticketOf(plated.getId())).getPlate());
+            assertNotNull(parkingBoy.park(new Car("粤A12345")));
+        }
+    }
+}
@@ -2,6 +2,16 @@ package com.afs.parkinglot;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ParkingLotTest {
@@ -113,4 +123,284 @@ public class ParkingLotTest {
 
         assertEquals("Unrecognized parking ticket.", exception.getMessage());
     }
+
+    @Test
+    void should_not_over_admit_when_park_concurrently_given_more_cars_than_capacity() throws Exception {
+        ParkingLot parkingLot = new ParkingLot(50);
+        ExecutorService gates = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<ParkingTicket>> results = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            results.add(gates.submit(() -> {
+                start.await();
+                try {
+                    return parkingLot.park(new Car());
+                } catch (ParkingException e) {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        int parked = 0;
+        for (Future<ParkingTicket> result : results) {
+            if (result.get() != null) {
+                parked++;
+            }
+        }
+        gates.shutdown();
+        assertTrue(gates.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, parked);
+        assertEquals(150, rejected.get());
+        assertTrue(parkingLot.isFull());
+        assertEquals(0, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_keep_count_consistent_when_park_and_fetch_concurrently() throws Exception {
+        ParkingLot parkingLot = new ParkingLot(16);
+        ExecutorService gates = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            results.add(gates.submit(() -> {
+                start.await();
+                for (int round = 0; round < 1000; round++) {
+                    try {
+                        ParkingTicket ticket = parkingLot.park(new Car());
+                        parkingLot.fetch(ticket);
+                    } catch (ParkingException e) {
+                        // 车位满时跳过，继续下一轮
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        gates.shutdown();
+
+        assertEquals(16, parkingLot.getAvailableCount());
+        assertFalse(parkingLot.isFull());
+    }
+
+    @Test
+    void should_park_as_many_as_fit_when_park_all_given_more_cars_than_positions() {
+        ParkingLot parkingLot = new ParkingLot(2);
+        Car car1 = new Car();
+        Car car2 = new Car();
+        Car car3 = new Car();
+
+        List<ParkingTicket> tickets = parkingLot.parkAll(Arrays.asList(car1, null, car2, car3));
+
+        assertEquals(4, tickets.size());
+        assertNull(tickets.get(1));
+        assertNull(tickets.get(3));
+        assertTrue(parkingLot.isFull());
+        assertEquals(car1, parkingLot.fetch(tickets.get(0)));
+        assertEquals(car2, parkingLot.fetch(tickets.get(2)));
+    }
+
+    @Test
+    void should_return_null_for_unrecognized_ticket_when_fetch_all() {
+        ParkingLot parkingLot = new ParkingLot(2);
+        Car car1 = new Car();
+        Car car2 = new Car();
+        ParkingTicket ticket1 = parkingLot.park(car1);
+        ParkingTicket ticket2 = parkingLot.park(car2);
+
+        List<Car> cars = parkingLot.fetchAll(Arrays.asList(ticket1, new ParkingTicket(), null, ticket2, ticket1));
+
+        assertEquals(Arrays.asList(car1, null, null, car2, null), cars);
+        assertEquals(2, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_reject_old_ticket_when_its_slot_is_reused_by_another_car() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        ParkingTicket oldTicket = parkingLot.park(new Car());
+        parkingLot.fetch(oldTicket);
+        Car car = new Car();
+        ParkingTicket newTicket = parkingLot.park(car);
+
+        assertNotEquals(oldTicket.getId(), newTicket.getId());
+        ParkingException exception = assertThrows(ParkingException.class, () -> {
+            parkingLot.fetch(oldTicket);
+        });
+        assertEquals("Unrecognized parking ticket.", exception.getMessage());
+        assertEquals(car, parkingLot.fetch(newTicket));
+    }
+
+    @Test
+    void should_reject_old_ticket_after_slot_is_reused_past_16_bit_generations() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        ParkingTicket oldTicket = parkingLot.park(new Car());
+        parkingLot.fetch(oldTicket);
+        // 再停取 32767 次后，下一张小票的代数低 16 位和旧小票相同
+        for (int i = 0; i < 32767; i++) {
+            parkingLot.fetch(parkingLot.park(new Car()));
+        }
+        Car car = new Car();
+        ParkingTicket newTicket = parkingLot.park(car);
+
+        assertEquals(ParkingTicket.generationOf(oldTicket.getId()) & 0xFFFF,
+                ParkingTicket.generationOf(newTicket.getId()) & 0xFFFF);
+        assertNull(parkingLot.tryFetch(oldTicket));
+        assertSame(car, parkingLot.fetch(newTicket));
+    }
+
+    @Test
+    void should_find_parked_car_after_slot_generation_wraps() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        long lastTicketId = ParkingTicket.encode(parkingLot.getId(), 0, ParkingTicket.GENERATION_MASK);
+        assertTrue(parkingLot.restore(lastTicketId, new Car()));
+        parkingLot.fetch(new ParkingTicket(lastTicketId, parkingLot));
+        Car car = new Car();
+        ParkingTicket ticket = parkingLot.park(car);
+
+        assertEquals(1, ParkingTicket.generationOf(ticket.getId()));
+        assertSame(car, parkingLot.parkedCar(ticket.getId()));
+        assertNull(parkingLot.parkedCar(lastTicketId));
+    }
+
+    @Test
+    void should_keep_stay_open_when_moved_car_is_put_back() {
+        ParkingLot source = new ParkingLot(2);
+        ParkingLot target = new ParkingLot(1);
+        target.park(new Car());
+        Car car = new Car();
+        ParkingTicket ticket = source.park(car);
+        int[] events = new int[3];
+        long[] stayParkedAt = new long[1];
+        source.addListener(new ParkingLotListener() {
+            @Override
+            public void onParked(ParkingLot parkingLot, long ticketId) {
+                events[0]++;
+            }
+
+            @Override
+            public void onFetched(ParkingLot parkingLot, long ticketId) {
+                events[1]++;
+            }
+
+            @Override
+            public void onStayCompleted(ParkingLot parkingLot, long ticketId, long parkedAtNanos, long fetchedAtNanos) {
+                events[2]++;
+                stayParkedAt[0] = parkedAtNanos;
+            }
+        });
+
+        ParkingLot.MovedCar moved = source.moveOut(ticket.getId());
+        assertNull(target.moveIn(moved, null));
+        ParkingTicket back = source.moveBack(ticket.getId(), moved);
+
+        assertEquals(ticket.getId(), back.getId());
+        assertEquals(1, source.getAvailableCount());
+        assertArrayEquals(new int[]{1, 1, 0}, events);
+        assertSame(car, source.fetch(ticket));
+        assertArrayEquals(new int[]{1, 2, 1}, events);
+        assertEquals(ticket.getIssuedAtNanos(), stayParkedAt[0]);
+    }
+
+    @Test
+    void should_put_moved_car_in_another_slot_when_its_slot_was_taken() {
+        ParkingLot source = new ParkingLot(2, SlotAllocationPolicy.NEAREST_TO_ENTRANCE);
+        Car car = new Car();
+        ParkingTicket ticket = source.park(car);
+        ParkingLot.MovedCar moved = source.moveOut(ticket.getId());
+        source.park(new Car());
+
+        ParkingTicket back = source.moveBack(ticket.getId(), moved);
+
+        assertEquals(1, ParkingTicket.slotOf(back.getId()));
+        assertEquals(ticket.getIssuedAtNanos(), back.getIssuedAtNanos());
+        assertTrue(source.isFull());
+        assertNull(source.tryFetch(ticket));
+        assertSame(car, source.fetch(back));
+    }
+
+    @Test
+    void should_reject_capacity_beyond_ticket_slot_bits() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new ParkingLot(ParkingTicket.MAX_SLOTS + 1));
+        assertEquals("Capacity out of range: " + (ParkingTicket.MAX_SLOTS + 1), exception.getMessage());
+    }
+
+    @Test
+    void should_fetch_car_when_ticket_is_rebuilt_from_its_id() {
+        ParkingLot parkingLot = new ParkingLot(3);
+        Car car = new Car();
+        ParkingTicket ticket = parkingLot.park(car);
+
+        ParkingTicket copy = new ParkingTicket(ticket.getId(), null);
+
+        assertEquals(ticket, copy);
+        assertEquals(car, parkingLot.fetch(copy));
+    }
+
+    @Test
+    void should_assign_lowest_free_slot_when_policy_is_nearest_to_entrance() {
+        ParkingLot parkingLot = new ParkingLot(130, SlotAllocationPolicy.NEAREST_TO_ENTRANCE);
+        List<ParkingTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tickets.add(parkingLot.park(new Car()));
+        }
+        parkingLot.fetch(tickets.get(70));
+        parkingLot.fetch(tickets.get(3));
+
+        ParkingTicket ticket = parkingLot.park(new Car());
+
+        assertEquals(3, ticket.getSlotNumber());
+        assertTrue(parkingLot.isSlotOccupied(3));
+        assertFalse(parkingLot.isSlotOccupied(70));
+        assertEquals(70, parkingLot.park(new Car()).getSlotNumber());
+        assertEquals(100, parkingLot.park(new Car()).getSlotNumber());
+    }
+
+    @Test
+    void should_hand_out_every_slot_once_when_park_until_full() {
+        ParkingLot parkingLot = new ParkingLot(70);
+        boolean[] assigned = new boolean[70];
+        for (int i = 0; i < 70; i++) {
+            int slot = parkingLot.park(new Car()).getSlotNumber();
+            assertFalse(assigned[slot]);
+            assigned[slot] = true;
+        }
+
+        assertTrue(parkingLot.isFull());
+        assertEquals(-1, new ParkingTicket().getSlotNumber());
+    }
+
+    @Test
+    void should_return_null_instead_of_throwing_when_try_park_and_try_fetch_fail() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        Car car = new Car();
+        ParkingTicket ticket = parkingLot.tryPark(car);
+
+        assertNotNull(ticket);
+        assertNull(parkingLot.tryPark(new Car()));
+        assertNull(parkingLot.tryPark(null));
+        assertNull(parkingLot.tryFetch(new ParkingTicket()));
+        assertNull(parkingLot.tryFetch(null));
+        assertEquals(car, parkingLot.tryFetch(ticket));
+        assertNull(parkingLot.tryFetch(ticket));
+    }
+
+    @Test
+    void should_throw_preallocated_exception_without_stack_trace_when_lot_is_full() {
+        ParkingLot parkingLot = new ParkingLot(0);
+
+        ParkingException first = assertThrows(ParkingException.class, () -> parkingLot.park(new Car()));
+        ParkingException second = assertThrows(ParkingException.class, () -> parkingLot.park(new Car()));
+
+        assertSame(first, second);
+        assertEquals(0, first.getStackTrace().length);
+    }
 }
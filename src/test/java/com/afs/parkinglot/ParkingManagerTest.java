@@ -0,0 +1,125 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingManagerTest {
+
+    @Test
+    void should_send_car_to_first_boy_with_room_and_fetch_through_owner() {
+        ParkingLot fullLot = new ParkingLot(1);
+        fullLot.park(new Car());
+        ParkingLot openLot = new ParkingLot(2);
+        StandardParkingBoy standard = new StandardParkingBoy(fullLot);
+        SmartParkingBoy smart = new SmartParkingBoy(openLot);
+        ParkingManager manager = new ParkingManager(Arrays.asList(standard, smart));
+        Car car = new Car();
+
+        ParkingTicket ticket = manager.park(car);
+
+        assertEquals(1, openLot.getAvailableCount());
+        assertEquals(0, manager.getAvailableCount(standard));
+        assertEquals(1, manager.getAvailableCount(smart));
+        assertSame(car, manager.fetch(ticket));
+        assertEquals(2, manager.getAvailableCount(smart));
+    }
+
+    @Test
+    void should_throw_when_every_boy_is_full() {
+        ParkingManager manager = new ParkingManager(Arrays.asList(
+                new StandardParkingBoy(new ParkingLot(1)), new SuperParkingBoy(new ParkingLot(1))));
+        manager.park(new Car());
+        manager.park(new Car());
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> manager.park(new Car()));
+        assertEquals("No available position.", exception.getMessage());
+    }
+
+    @Test
+    void should_reject_plate_already_parked_with_another_boy() {
+        StandardParkingBoy standard = new StandardParkingBoy(new ParkingLot(1));
+        SmartParkingBoy smart = new SmartParkingBoy(new ParkingLot(1));
+        ParkingManager manager = new ParkingManager(Arrays.asList(standard, smart));
+        ParkingTicket ticket = standard.park(new Car("A12345"));
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> manager.park(new Car("A12345")));
+
+        assertEquals("Car already parked.", exception.getMessage());
+        assertEquals(1, manager.getAvailableCount(smart));
+        manager.fetch(ticket);
+        assertNotNull(manager.park(new Car("A12345")));
+    }
+
+    @Test
+    void should_reject_unknown_ticket_and_empty_manager() {
+        ParkingManager manager = new ParkingManager(Arrays.asList(new StandardParkingBoy(new ParkingLot(1))));
+        ParkingTicket foreign = new ParkingLot(1).park(new Car());
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> manager.fetch(foreign));
+        assertEquals("Unrecognized parking ticket.", exception.getMessage());
+        ParkingException empty = assertThrows(ParkingException.class, () -> new ParkingManager().park(new Car()));
+        assertEquals("No parking lot managed.", empty.getMessage());
+    }
+
+    @Test
+    void should_find_boy_with_room_in_parallel_when_many_boys_managed() {
+        List<StandardParkingBoy> boys = new ArrayList<>();
+        for (int i = 0; i < ParkingManager.PARALLEL_THRESHOLD * 2; i++) {
+            ParkingLot parkingLot = new ParkingLot(1);
+            parkingLot.park(new Car());
+            boys.add(new StandardParkingBoy(parkingLot));
+        }
+        ParkingLot last = new ParkingLot(1);
+        boys.add(new StandardParkingBoy(last));
+        ParkingManager manager = new ParkingManager(boys);
+
+        manager.park(new Car());
+
+        assertTrue(last.isFull());
+    }
+
+    @Test
+    void should_pick_up_lots_added_to_boy_after_remanaging() {
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(new ParkingLot(1));
+        ParkingManager manager = new ParkingManager(Arrays.asList(parkingBoy));
+        manager.park(new Car());
+        parkingBoy.manageParkingLot(new ParkingLot(1));
+        manager.manageParkingBoy(parkingBoy);
+
+        assertNotNull(manager.park(new Car()));
+    }
+
+    @Test
+    void should_drop_lots_removed_from_boy_after_remanaging() {
+        ParkingLot removed = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(removed, new ParkingLot(1)));
+        ParkingManager manager = new ParkingManager(Arrays.asList(parkingBoy));
+        parkingBoy.removeParkingLot(removed);
+        manager.manageParkingBoy(parkingBoy);
+
+        assertEquals(1, manager.getAvailableCount(parkingBoy));
+    }
+
+    @Test
+    void should_follow_lots_added_and_removed_by_boy_without_remanaging() {
+        ParkingLot first = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(first);
+        ParkingManager manager = new ParkingManager(Arrays.asList(parkingBoy));
+        manager.park(new Car());
+        ParkingLot added = new ParkingLot(2);
+
+        parkingBoy.manageParkingLot(added);
+        assertEquals(2, manager.getAvailableCount(parkingBoy));
+        ParkingTicket ticket = manager.park(new Car());
+        assertSame(added, ticket.getParkingLot());
+
+        parkingBoy.removeParkingLot(added);
+        assertEquals(0, manager.getAvailableCount(parkingBoy));
+        assertNull(manager.tryFetch(ticket));
+    }
+}
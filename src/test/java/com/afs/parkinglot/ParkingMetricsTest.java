@@ -0,0 +1,109 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingMetricsTest {
+
+    @Test
+    void should_count_calls_and_rejections_by_reason() {
+        ParkingLot parkingLot = new ParkingLot(1);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(parkingLot);
+        ParkingTicket ticket = parkingBoy.park(new Car());
+        assertNull(parkingBoy.tryPark(new Car()));
+        assertThrows(ParkingException.class, () -> parkingBoy.park(null));
+        parkingBoy.fetch(ticket);
+        assertNull(parkingBoy.tryFetch(ticket));
+
+        ParkingMetricsSnapshot snapshot = parkingBoy.getMetrics().snapshot();
+        assertEquals(3, snapshot.getParkCalls());
+        assertEquals(2, snapshot.getFetchCalls());
+        assertEquals(1, snapshot.getRejections(ParkingRejection.NO_AVAILABLE_POSITION));
+        assertEquals(1, snapshot.getRejections(ParkingRejection.NULL_CAR));
+        assertEquals(1, snapshot.getRejections(ParkingRejection.UNRECOGNIZED_TICKET));
+        assertEquals(0, snapshot.getRejections(ParkingRejection.NO_PARKING_LOT_MANAGED));
+        assertTrue(snapshot.getParkLatencyP99() >= snapshot.getParkLatencyP50());
+    }
+
+    @Test
+    void should_count_batch_and_hold_calls_with_rejections_per_car() {
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(new ParkingLot(3));
+        parkingBoy.park(new Car("DUP"));
+        List<ParkingTicket> tickets = parkingBoy.parkAll(
+                Arrays.asList(new Car(), null, new Car("DUP"), new Car(), new Car()));
+        parkingBoy.fetchAll(Arrays.asList(tickets.get(0), tickets.get(0), new ParkingTicket()));
+        ParkingHold hold = parkingBoy.hold(1, TimeUnit.MINUTES);
+        assertNull(parkingBoy.tryHold(1, TimeUnit.MINUTES));
+        hold.cancel();
+
+        ParkingMetricsSnapshot snapshot = parkingBoy.getMetrics().snapshot();
+        assertEquals(6, snapshot.getParkCalls());
+        assertEquals(3, snapshot.getFetchCalls());
+        assertEquals(2, snapshot.getHoldCalls());
+        assertEquals(1, snapshot.getRejections(ParkingRejection.NULL_CAR));
+        assertEquals(1, snapshot.getRejections(ParkingRejection.DUPLICATE_CAR));
+        assertEquals(2, snapshot.getRejections(ParkingRejection.NO_AVAILABLE_POSITION));
+        assertEquals(2, snapshot.getRejections(ParkingRejection.UNRECOGNIZED_TICKET));
+        assertTrue(snapshot.getParkBatchLatencyP50() > 0);
+        assertTrue(snapshot.getFetchBatchLatencyP99() >= snapshot.getFetchBatchLatencyP50());
+    }
+
+    @Test
+    void should_count_no_parking_lot_managed_rejection() {
+        StandardParkingBoy parkingBoy = new StandardParkingBoy();
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingBoy.fetch(new ParkingTicket()));
+        assertEquals(ParkingRejection.NO_PARKING_LOT_MANAGED.getMessage(), exception.getMessage());
+        assertEquals(1, parkingBoy.getMetrics().getRejectedNoParkingLotManaged());
+    }
+
+    @Test
+    void should_report_lots_scanned_and_occupancy_per_lot() {
+        ParkingLot full = new ParkingLot(1);
+        ParkingLot open = new ParkingLot(2);
+        full.park(new Car());
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(full, open));
+        parkingBoy.park(new Car());
+
+        ParkingMetricsSnapshot snapshot = parkingBoy.getMetrics().snapshot();
+        assertEquals(2, snapshot.getLotsScannedP99());
+        assertEquals(Integer.valueOf(1), snapshot.getOccupancyByLot().get(full.getId()));
+        assertEquals(Integer.valueOf(1), snapshot.getOccupancyByLot().get(open.getId()));
+    }
+
+    @Test
+    void should_expose_metrics_through_jmx() throws Exception {
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(new ParkingLot(1));
+        parkingBoy.park(new Car());
+        ObjectName name = parkingBoy.getMetrics().registerMBean("jmx-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(name, "ParkCalls"));
+            assertNotNull(server.getAttribute(name, "OccupancyByLot"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void should_bucket_histogram_values_with_bounded_error() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100L);
+        }
+        assertEquals(1000, histogram.count());
+        long p50 = histogram.percentile(0.5);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 1.13, "p50 was " + p50);
+
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(7);
+        assertEquals(7, small.percentile(1.0));
+    }
+}
@@ -0,0 +1,121 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingStrategyTest {
+
+    @Test
+    void should_select_earlier_lot_again_when_it_frees_a_position_given_first_available() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(2);
+        ParkingStrategy strategy = ParkingStrategy.firstAvailable();
+        strategy.register(lot1);
+        strategy.register(lot2);
+
+        ParkingTicket ticket = lot1.park(new Car());
+        assertSame(lot2, strategy.select());
+        assertSame(lot2, strategy.select());
+
+        lot1.fetch(ticket);
+        assertSame(lot1, strategy.select());
+    }
+
+    @Test
+    void should_return_null_until_any_lot_frees_a_position_given_all_lots_full() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(1);
+        ParkingStrategy strategy = ParkingStrategy.firstAvailable();
+        strategy.register(lot1);
+        strategy.register(lot2);
+        lot1.park(new Car());
+        ParkingTicket ticket = lot2.park(new Car());
+
+        assertNull(strategy.select());
+
+        lot2.fetch(ticket);
+        assertSame(lot2, strategy.select());
+    }
+
+    @Test
+    void should_follow_ranking_when_lots_change_given_most_available() {
+        ParkingLot lot1 = new ParkingLot(3);
+        ParkingLot lot2 = new ParkingLot(3);
+        ParkingStrategy strategy = ParkingStrategy.mostAvailable();
+        strategy.register(lot1);
+        strategy.register(lot2);
+
+        assertSame(lot1, strategy.select());
+        ParkingTicket ticket = lot1.park(new Car());
+        assertSame(lot2, strategy.select());
+        lot1.fetch(ticket);
+        assertSame(lot1, strategy.select());
+    }
+
+    @Test
+    void should_park_with_custom_strategy_without_writing_a_subclass() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(1);
+        // 总是选最后登记的停车场
+        ParkingStrategy lastRegistered = new ParkingStrategy() {
+            private ParkingLot last;
+
+            @Override
+            public void register(ParkingLot parkingLot) {
+                last = parkingLot;
+            }
+
+            @Override
+            public ParkingLot select() {
+                return last.isFull() ? null : last;
+            }
+        };
+        StandardParkingBoy boy = new StandardParkingBoy(Arrays.asList(lot1, lot2), lastRegistered);
+
+        Car car = new Car();
+        ParkingTicket ticket = boy.park(car);
+
+        assertEquals(car, lot2.fetch(ticket));
+        assertFalse(lot1.isFull());
+    }
+
+    @Test
+    void should_rank_by_final_counts_after_concurrent_gates_given_most_available() throws InterruptedException {
+        List<ParkingLot> parkingLots = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            parkingLots.add(new ParkingLot(50));
+        }
+        StandardParkingBoy boy = new SmartParkingBoy(parkingLots);
+        List<Thread> gates = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int gate = i;
+            gates.add(new Thread(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    ParkingTicket ticket = boy.park(new Car());
+                    // 每个闸口留下一辆车，其余停完即取
+                    if (j != gate) {
+                        boy.fetch(ticket);
+                    }
+                }
+            }));
+        }
+        gates.forEach(Thread::start);
+        for (Thread gate : gates) {
+            gate.join();
+        }
+
+        ParkingLot expected = parkingLots.get(0);
+        for (ParkingLot parkingLot : parkingLots) {
+            if (parkingLot.getAvailableCount() > expected.getAvailableCount()) {
+                expected = parkingLot;
+            }
+        }
+        assertEquals(392, parkingLots.stream().mapToInt(ParkingLot::getAvailableCount).sum());
+        assertEquals(expected.getAvailableCount(), boy.park(new Car()).getParkingLot().getAvailableCount() + 1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParkingWireServerTest {
+
+    private ParkingLot parkingLot;
+    private ParkingWireServer server;
+    private ParkingWireClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        parkingLot = new ParkingLot(20000);
+        server = ParkingWireServer.open(new StandardParkingBoy(parkingLot),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = ParkingWireClient.connect(server.getLocalAddress());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void should_park_and_fetch_over_wire() throws IOException {
+        long ticketId = client.park("A12345");
+
+        assertEquals(parkingLot.getId(), ParkingTicket.lotIdOf(ticketId));
+        assertEquals(19999, client.getAvailableCount());
+        client.fetch(ticketId);
+        assertEquals(20000, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_return_rejection_reason_over_wire() throws IOException {
+        long ticketId = client.park("A12345");
+
+        ParkingException duplicate = assertThrows(ParkingException.class, () -> client.park("A12345"));
+        assertEquals("Car already parked.", duplicate.getMessage());
+        client.fetch(ticketId);
+        ParkingException reused = assertThrows(ParkingException.class, () -> client.fetch(ticketId));
+        assertEquals("Unrecognized parking ticket.", reused.getMessage());
+    }
+
+    @Test
+    void should_carry_bay_type_over_wire() throws IOException {
+        long ticketId = client.park("A12345", BayType.COMPACT);
+        assertEquals(parkingLot.getId(), ParkingTicket.lotIdOf(ticketId));
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> client.park("B12345", BayType.OVERSIZE));
+        assertEquals("No available position.", exception.getMessage());
+    }
+
+    @Test
+    void should_park_and_fetch_batches_over_wire() throws IOException {
+        long[] ticketIds = client.parkAll(3);
+        long[] fetched = client.fetchAll(new long[]{ticketIds[2], 0, ticketIds[0]});
+
+        assertTrue(Arrays.stream(ticketIds).allMatch(id -> id != 0));
+        assertArrayEquals(new long[]{1, 0, 1}, fetched);
+        assertEquals(19999, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_answer_pipelined_requests_in_order() throws IOException {
+        long[] ticketIds = client.parkPipelined(20001);
+
+        assertEquals(0, ticketIds[20000]);
+        assertEquals(0, parkingLot.getAvailableCount());
+        assertEquals(20000, client.fetchPipelined(Arrays.copyOf(ticketIds, 20000)));
+        assertEquals(20000, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_serve_several_connections() throws IOException {
+        try (ParkingWireClient other = ParkingWireClient.connect(server.getLocalAddress())) {
+            long ticketId = other.park();
+            client.fetch(ticketId);
+        }
+        assertEquals(20000, parkingLot.getAvailableCount());
+    }
+
+    @Test
+    void should_reject_batches_and_keep_connection_when_no_lot_managed() throws IOException {
+        try (ParkingWireServer emptyServer = ParkingWireServer.open(new StandardParkingBoy(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             ParkingWireClient emptyClient = ParkingWireClient.connect(emptyServer.getLocalAddress())) {
+            ParkingException parkRejected = assertThrows(ParkingException.class, () -> emptyClient.parkAll(3));
+            assertEquals("No parking lot managed.", parkRejected.getMessage());
+            ParkingException fetchRejected = assertThrows(ParkingException.class,
+                    () -> emptyClient.fetchAll(new long[]{1, 2}));
+            assertEquals("No parking lot managed.", fetchRejected.getMessage());
+            assertEquals(0, emptyClient.getAvailableCount());
+        }
+    }
+
+    @Test
+    void should_cap_status_counts_at_int_range_without_mixing_fields() {
+        long payload = WireProtocol.statusPayload(5_000_000_000L, 6_000_000_000L);
+
+        assertEquals(Integer.MAX_VALUE, WireProtocol.availableOf(payload));
+        assertEquals(Integer.MAX_VALUE, WireProtocol.capacityOf(payload));
+
+        long ordinary = WireProtocol.statusPayload(3, 1L << 31);
+        assertEquals(3, WireProtocol.availableOf(ordinary));
+        assertEquals(Integer.MAX_VALUE, WireProtocol.capacityOf(ordinary));
+    }
+}
@@ -0,0 +1,61 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedParkingRegistryTest {
+
+    @Test
+    void should_park_in_local_shard_and_fetch_by_ticket_shard() {
+        StandardParkingBoy north = new StandardParkingBoy(new ParkingLot(2));
+        ParkingLot southLot = new ParkingLot(2);
+        StandardParkingBoy south = new StandardParkingBoy(southLot);
+        ShardedParkingRegistry registry = new ShardedParkingRegistry(Arrays.asList(north, south), 1);
+        Car car = new Car();
+
+        ParkingTicket ticket = registry.park(car);
+
+        assertEquals(1, ticket.getShard());
+        assertEquals(1, southLot.getAvailableCount());
+        assertSame(car, registry.fetch(ticket));
+    }
+
+    @Test
+    void should_spill_over_to_next_shard_when_local_shard_is_full() {
+        StandardParkingBoy north = new StandardParkingBoy(new ParkingLot(1));
+        StandardParkingBoy south = new StandardParkingBoy(new ParkingLot(1));
+        ShardedParkingRegistry registry = new ShardedParkingRegistry(Arrays.asList(north, south));
+
+        ParkingTicket first = registry.park(new Car());
+        ParkingTicket second = registry.park(new Car());
+
+        assertEquals(0, first.getShard());
+        assertEquals(1, second.getShard());
+        ParkingException exception = assertThrows(ParkingException.class, () -> registry.park(new Car()));
+        assertEquals("No available position.", exception.getMessage());
+    }
+
+    @Test
+    void should_reject_ticket_without_shard_or_already_used() {
+        ShardedParkingRegistry registry = new ShardedParkingRegistry(
+                Collections.singletonList(new StandardParkingBoy(new ParkingLot(1))));
+        ParkingTicket ticket = registry.park(new Car());
+        registry.fetch(ticket);
+
+        ParkingException reused = assertThrows(ParkingException.class, () -> registry.fetch(ticket));
+        assertEquals("Unrecognized parking ticket.", reused.getMessage());
+        assertNull(registry.tryFetch(new ParkingTicket()));
+    }
+
+    @Test
+    void should_throw_when_no_shard_registered() {
+        ShardedParkingRegistry registry = new ShardedParkingRegistry(Collections.<StandardParkingBoy>emptyList());
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> registry.park(new Car()));
+        assertEquals("No parking lot managed.", exception.getMessage());
+    }
+}
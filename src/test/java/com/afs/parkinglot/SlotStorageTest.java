@@ -0,0 +1,119 @@
+package com.afs.parkinglot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotStorageTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("slot-storage");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void should_fetch_car_with_same_plate_and_bay_type_from_off_heap_lot() {
+        ParkingLot parkingLot = new ParkingLot(2, SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        ParkingTicket plated = parkingLot.park(new Car("粤B12345", BayType.EV_CHARGING));
+        ParkingTicket anonymous = parkingLot.park(new Car());
+
+        Car fetched = parkingLot.fetch(plated);
+        assertEquals("粤B12345", fetched.getPlate());
+        assertEquals(BayType.EV_CHARGING, fetched.getBayType());
+        assertNull(parkingLot.fetch(anonymous).getPlate());
+        assertEquals(SlotStorage.OFF_HEAP, parkingLot.getSlotStorage());
+    }
+
+    @Test
+    void should_fetch_car_equal_to_parked_one_from_off_heap_lot() {
+        ParkingLot parkingLot = new ParkingLot(2, SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        Car car = new Car("粤B12345", BayType.EV_CHARGING);
+
+        Car fetched = parkingLot.fetch(parkingLot.park(car));
+
+        assertEquals(car, fetched);
+        assertEquals(car.hashCode(), fetched.hashCode());
+        assertNotEquals(new Car("粤B12345"), fetched);
+        assertEquals(new Car(), parkingLot.fetch(parkingLot.park(new Car())));
+    }
+
+    @Test
+    void should_keep_plate_longer_than_record_in_off_heap_lot() {
+        ParkingLot parkingLot = new ParkingLot(1, SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        String plate = "DIPLOMATIC-CORPS-0001";
+
+        ParkingTicket ticket = parkingLot.park(new Car(plate));
+
+        assertEquals(plate, parkingLot.fetch(ticket).getPlate());
+        assertEquals("SHORT", parkingLot.fetch(parkingLot.park(new Car("SHORT"))).getPlate());
+    }
+
+    @Test
+    void should_keep_park_and_fetch_errors_in_off_heap_lot() {
+        ParkingLot parkingLot = new ParkingLot(1, SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        ParkingTicket ticket = parkingLot.park(new Car());
+
+        ParkingException full = assertThrows(ParkingException.class, () -> parkingLot.park(new Car()));
+        assertEquals("No available position.", full.getMessage());
+        parkingLot.fetch(ticket);
+        ParkingException reused = assertThrows(ParkingException.class, () -> parkingLot.fetch(ticket));
+        assertEquals("Unrecognized parking ticket.", reused.getMessage());
+        ParkingException nullCar = assertThrows(ParkingException.class, () -> parkingLot.park(null));
+        assertEquals("Cannot park null car", nullCar.getMessage());
+    }
+
+    @Test
+    void should_track_plates_through_boy_managing_off_heap_lots() {
+        ParkingLot small = new ParkingLot(new BayLayout().with(BayType.COMPACT, 1), SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        ParkingLot large = new ParkingLot(4, SlotAllocationPolicy.NEXT_FREE, SlotStorage.OFF_HEAP);
+        StandardParkingBoy parkingBoy = new StandardParkingBoy(Arrays.asList(small, large));
+
+        List<ParkingTicket> tickets = parkingBoy.parkAll(Arrays.asList(new Car("H1", BayType.COMPACT), new Car("H2")));
+        ParkingException duplicate = assertThrows(ParkingException.class, () -> parkingBoy.park(new Car("H1")));
+        assertEquals("Car already parked.", duplicate.getMessage());
+
+        List<Car> cars = parkingBoy.fetchAll(tickets);
+        assertEquals("H1", cars.get(0).getPlate());
+        assertEquals(BayType.COMPACT, cars.get(0).getBayType());
+        assertEquals("H2", cars.get(1).getPlate());
+        assertNotNull(parkingBoy.park(new Car("H1")));
+    }
+
+    @Test
+    void should_restore_off_heap_lot_from_journal() throws IOException {
+        ParkingTicket ticket;
+        try (ParkingJournal journal = ParkingJournal.open(directory)) {
+            ParkingLot parkingLot = new ParkingLot(3, SlotAllocationPolicy.NEAREST_TO_ENTRANCE, SlotStorage.OFF_HEAP);
+            journal.attach(parkingLot);
+            ticket = parkingLot.park(new Car());
+        }
+
+        for (int restart = 0; restart < 2; restart++) {
+            try (ParkingJournal journal = ParkingJournal.open(directory)) {
+                ParkingLot restored = journal.getParkingLots().get(0);
+                assertEquals(SlotStorage.OFF_HEAP, restored.getSlotStorage());
+                assertEquals(SlotAllocationPolicy.NEAREST_TO_ENTRANCE, restored.getSlotAllocationPolicy());
+                assertTrue(restored.isSlotOccupied(ticket.getSlotNumber()));
+            }
+        }
+    }
+}
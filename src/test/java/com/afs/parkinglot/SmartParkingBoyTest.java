@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -154,4 +155,84 @@ public class SmartParkingBoyTest {
         // Then: 应该停在空位最多的lot3（4空位）
         assertEquals(car, lot3.fetch(ticket));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_park_to_lot_freed_by_direct_fetch() {
+        // Given: lot1停满，然后绕过停车小弟直接从lot1取走两辆车
+        ParkingTicket[] tickets = new ParkingTicket[5];
+        for (int i = 0; i < 5; i++) {
+            tickets[i] = lot1.park(new Car());
+        }
+        ParkingTicket ticket = smartParkingBoy.park(car);
+        assertEquals(car, lot3.fetch(ticket));
+        lot1.fetch(tickets[0]);
+        lot1.fetch(tickets[1]);
+        lot1.fetch(tickets[2]);
+        lot1.fetch(tickets[3]);
+        lot1.fetch(tickets[4]);
+
+        // When: 再次停车
+        Car nextCar = new Car();
+        ParkingTicket nextTicket = smartParkingBoy.park(nextCar);
+
+        // Then: 选场结果跟随停车场的实时空位数
+        assertEquals(nextCar, lot1.fetch(nextTicket));
+    }
+
+    @Test
+    public void should_park_to_lot_managed_later_when_it_has_most_spaces() {
+        ParkingLot bigLot = new ParkingLot(20);
+        smartParkingBoy.manageParkingLot(bigLot);
+
+        ParkingTicket ticket = smartParkingBoy.park(car);
+
+        assertEquals(car, bigLot.fetch(ticket));
+    }
+
+    @Test
+    public void should_not_park_to_removed_lot_even_when_it_has_most_spaces() {
+        ParkingLot bigLot = new ParkingLot(20);
+        smartParkingBoy.manageParkingLot(bigLot);
+        smartParkingBoy.removeParkingLot(bigLot);
+
+        ParkingTicket ticket = smartParkingBoy.park(car);
+
+        assertNotSame(bigLot, ticket.getParkingLot());
+        assertEquals(20, bigLot.getAvailableCount());
+    }
+
+    @Test
+    public void should_spread_batch_like_parking_one_by_one_when_park_all() {
+        // Given: 空位数 5,3,4，逐辆停6辆车后应为 2,2,2
+        List<Car> cars = Arrays.asList(new Car(), new Car(), new Car(), new Car(), new Car(), new Car());
+
+        // When: 批量停车
+        List<ParkingTicket> tickets = smartParkingBoy.parkAll(cars);
+
+        // Then: 分布与逐辆停车一致
+        assertEquals(2, lot1.getAvailableCount());
+        assertEquals(2, lot2.getAvailableCount());
+        assertEquals(2, lot3.getAvailableCount());
+        assertEquals(cars, smartParkingBoy.fetchAll(tickets));
+    }
+
+    @Test
+    public void should_avoid_lot_about_to_fill_when_using_predicted_spaces() {
+        // Given: filling 停车场每个采样间隔停进 3 辆车，steady 停车场不变
+        ParkingLot filling = new ParkingLot(20);
+        ParkingLot steady = new ParkingLot(10);
+        OccupancyForecaster forecaster = new OccupancyForecaster(1, TimeUnit.SECONDS);
+        SmartParkingBoy predictingBoy = new SmartParkingBoy(Arrays.asList(filling, steady), forecaster, 5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            filling.parkAll(Arrays.asList(new Car(), new Car(), new Car()));
+            forecaster.sample();
+        }
+
+        // When: filling 当前空位更多（11 > 10），但预测 5 秒后即将停满
+        predictingBoy.park(car);
+
+        // Then: 停到 steady
+        assertEquals(11, filling.getAvailableCount());
+        assertEquals(9, steady.getAvailableCount());
+    }
+}
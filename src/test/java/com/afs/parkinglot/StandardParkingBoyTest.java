@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class StandardParkingBoyTest {
 
@@ -271,4 +273,224 @@ public class StandardParkingBoyTest {
 
         assertEquals(car3, lot1.fetch(ticket3));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_throw_exception_when_fetch_with_ticket_from_lot_not_managed() {
+        ParkingLot otherLot = new ParkingLot(1);
+        ParkingTicket otherTicket = otherLot.park(new Car());
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> {
+            parkingBoy.fetch(otherTicket);
+        });
+
+        assertEquals("Unrecognized parking ticket.", exception.getMessage());
+        assertTrue(otherLot.isFull());
+    }
+
+    @Test
+    void should_fill_lots_in_order_when_park_all_given_batch_larger_than_first_lot() {
+        ParkingLot lot1 = new ParkingLot(2);
+        ParkingLot lot2 = new ParkingLot(2);
+        StandardParkingBoy boy = new StandardParkingBoy(Arrays.asList(lot1, lot2));
+        Car car1 = new Car();
+        Car car2 = new Car();
+        Car car3 = new Car();
+        Car car4 = new Car();
+        Car car5 = new Car();
+
+        List<ParkingTicket> tickets = boy.parkAll(Arrays.asList(car1, car2, car3, car4, car5));
+
+        assertEquals(car1, lot1.fetch(tickets.get(0)));
+        assertEquals(car2, lot1.fetch(tickets.get(1)));
+        assertEquals(car3, lot2.fetch(tickets.get(2)));
+        assertEquals(car4, lot2.fetch(tickets.get(3)));
+        assertNull(tickets.get(4));
+    }
+
+    @Test
+    void should_return_cars_across_lots_when_fetch_all_given_mixed_tickets() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(1);
+        StandardParkingBoy boy = new StandardParkingBoy(Arrays.asList(lot1, lot2));
+        Car car1 = new Car();
+        Car car2 = new Car();
+        ParkingTicket ticket1 = boy.park(car1);
+        ParkingTicket ticket2 = boy.park(car2);
+
+        List<Car> cars = boy.fetchAll(Arrays.asList(ticket2, new ParkingTicket(), ticket1));
+
+        assertEquals(Arrays.asList(car2, null, car1), cars);
+        assertFalse(lot1.isFull());
+        assertFalse(lot2.isFull());
+    }
+
+    @Test
+    void should_return_null_when_try_park_and_try_fetch_fail_given_parking_boy() {
+        StandardParkingBoy emptyParkingBoy = new StandardParkingBoy();
+        assertNull(emptyParkingBoy.tryPark(new Car()));
+
+        ParkingTicket ticket1 = parkingBoy.tryPark(new Car());
+        ParkingTicket ticket2 = parkingBoy.tryPark(new Car());
+        assertNotNull(ticket1);
+        assertNotNull(ticket2);
+        assertNull(parkingBoy.tryPark(new Car()));
+        assertNull(parkingBoy.tryFetch(new ParkingTicket()));
+        assertNull(parkingBoy.tryFetch(new ParkingLot(1).park(new Car())));
+        assertNotNull(parkingBoy.tryFetch(ticket1));
+        assertNull(parkingBoy.tryFetch(ticket1));
+    }
+
+    @Test
+    void should_throw_exception_when_park_car_with_same_plate_twice_given_parking_boy() {
+        parkingBoy.park(new Car("A12345"));
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> parkingBoy.park(new Car("A12345")));
+
+        assertEquals("Car already parked.", exception.getMessage());
+        assertEquals(1, parkingBoy.getMetrics().getRejectedDuplicateCar());
+    }
+
+    @Test
+    void should_accept_plate_again_after_car_fetched_directly_from_lot_given_parking_boy() {
+        ParkingLot lot = new ParkingLot(2);
+        StandardParkingBoy boy = new StandardParkingBoy(lot);
+        ParkingTicket ticket = boy.park(new Car("A12345"));
+
+        lot.fetch(ticket);
+
+        assertNull(boy.locate("A12345"));
+        assertNotNull(boy.park(new Car("A12345")));
+    }
+
+    @Test
+    void should_reject_plate_parked_by_another_boy_on_shared_lot_until_fetched() {
+        ParkingLot lot = new ParkingLot(2);
+        StandardParkingBoy boy1 = new StandardParkingBoy(lot);
+        StandardParkingBoy boy2 = new StandardParkingBoy(lot);
+        ParkingTicket ticket = boy1.park(new Car("A12345"));
+
+        ParkingException exception = assertThrows(ParkingException.class, () -> boy2.park(new Car("A12345")));
+        assertEquals("Car already parked.", exception.getMessage());
+
+        boy2.fetch(ticket);
+
+        assertNotNull(boy1.park(new Car("A12345")));
+    }
+
+    @Test
+    void should_locate_car_by_plate_until_fetched_given_parking_boy() {
+        ParkingLot lot1 = new ParkingLot(1);
+        ParkingLot lot2 = new ParkingLot(1);
+        StandardParkingBoy boy = new StandardParkingBoy(Arrays.asList(lot1, lot2));
+        boy.park(new Car("A11111"));
+        ParkingTicket ticket = boy.park(new Car("B22222"));
+
+        CarLocation location = boy.locate("B22222");
+        assertSame(lot2, location.getParkingLot());
+        assertEquals(ticket.getSlotNumber(), location.getSlotNumber());
+
+        boy.fetch(ticket);
+        assertNull(boy.locate("B22222"));
+        assertNotNull(boy.park(new Car("B22222")));
+    }
+
+    @Test
+    void should_release_plate_when_car_cannot_park_given_full_parking_boy() {
+        parkingBoy.park(new Car());
+        parkingBoy.park(new Car());
+
+        assertNull(parkingBoy.tryPark(new Car("C33333")));
+        assertNull(parkingBoy.locate("C33333"));
+    }
+
+    @Test
+    void should_skip_duplicate_plates_in_batch_given_parking_boy() {
+        ParkingLot lot = new ParkingLot(5);
+        StandardParkingBoy boy = new StandardParkingBoy(lot);
+
+        List<ParkingTicket> tickets = boy.parkAll(Arrays.asList(new Car("D1"), new Car("D1"), new Car("D2")));
+
+        assertNotNull(tickets.get(0));
+        assertNull(tickets.get(1));
+        assertNotNull(tickets.get(2));
+        boy.fetchAll(Arrays.asList(tickets.get(0), tickets.get(2)));
+        assertNull(boy.locate("D1"));
+        assertNull(boy.locate("D2"));
+    }
+
+    @Test
+    void should_admit_same_plate_once_when_parked_concurrently_given_parking_boy() throws InterruptedException {
+        StandardParkingBoy boy = new StandardParkingBoy(new ParkingLot(100));
+        AtomicInteger parked = new AtomicInteger();
+        Thread[] gates = new Thread[8];
+        for (int i = 0; i < gates.length; i++) {
+            gates[i] = new Thread(() -> {
+                if (boy.tryPark(new Car("E99999")) != null) {
+                    parked.incrementAndGet();
+                }
+            });
+            gates[i].start();
+        }
+        for (Thread gate : gates) {
+            gate.join();
+        }
+
+        assertEquals(1, parked.get());
+        assertNotNull(boy.locate("E99999"));
+    }
+
+    @Test
+    void should_return_same_read_only_view_until_lots_change_given_parking_boy() {
+        List<ParkingLot> before = parkingBoy.getManagedParkingLots();
+
+        assertSame(before, parkingBoy.getManagedParkingLots());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(new ParkingLot(1)));
+        ParkingLot added = new ParkingLot(1);
+        parkingBoy.manageParkingLot(added);
+        parkingBoy.manageParkingLot(added);
+
+        assertEquals(Arrays.asList(parkingLot), before);
+        assertEquals(Arrays.asList(parkingLot, added), parkingBoy.getManagedParkingLots());
+    }
+
+    @Test
+    void should_stop_parking_and_fetching_in_removed_lot_given_parking_boy() {
+        ParkingLot second = new ParkingLot(2);
+        StandardParkingBoy boy = new StandardParkingBoy(Arrays.asList(parkingLot, second));
+        ParkingTicket ticket = boy.park(new Car("F12345"));
+
+        assertTrue(boy.removeParkingLot(parkingLot));
+        assertFalse(boy.removeParkingLot(parkingLot));
+
+        assertSame(second, boy.park(new Car()).getParkingLot());
+        assertNull(boy.tryFetch(ticket));
+        assertNull(boy.locate("F12345"));
+        assertNotNull(parkingLot.fetch(ticket));
+        assertEquals(Arrays.asList(second), boy.getManagedParkingLots());
+    }
+
+    @Test
+    void should_keep_parking_while_lots_are_added_and_removed_concurrently_given_parking_boy() throws InterruptedException {
+        ParkingLot steady = new ParkingLot(100000);
+        StandardParkingBoy boy = new StandardParkingBoy(steady);
+        AtomicInteger failed = new AtomicInteger();
+        Thread gate = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                ParkingTicket ticket = boy.tryPark(new Car());
+                if (ticket == null || boy.tryFetch(ticket) == null && ticket.getParkingLot() == steady) {
+                    failed.incrementAndGet();
+                }
+            }
+        });
+        gate.start();
+        for (int i = 0; i < 200; i++) {
+            ParkingLot extra = new ParkingLot(1);
+            boy.manageParkingLot(extra);
+            boy.removeParkingLot(extra);
+        }
+        gate.join();
+
+        assertEquals(0, failed.get());
+        assertEquals(Arrays.asList(steady), boy.getManagedParkingLots());
+    }
+}
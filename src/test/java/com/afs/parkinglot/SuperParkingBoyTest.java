@@ -184,4 +184,24 @@ public class SuperParkingBoyTest {
         // Then: 应该停在正常停车场
         assertEquals(car, normalLot.fetch(ticket));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_spread_batch_like_parking_one_by_one_when_park_all() {
+        // Given: 容量 10,5,8；逐辆按空置率停车
+        SuperParkingBoy referenceBoy = new SuperParkingBoy(Arrays.asList(new ParkingLot(10), new ParkingLot(5), new ParkingLot(8)));
+        for (int i = 0; i < 9; i++) {
+            referenceBoy.park(new Car());
+        }
+        List<ParkingLot> referenceLots = referenceBoy.getManagedParkingLots();
+
+        // When: 批量停同样数量的车
+        List<ParkingTicket> tickets = superParkingBoy.parkAll(Arrays.asList(
+                new Car(), new Car(), new Car(), new Car(), new Car(), new Car(), new Car(), new Car(), new Car()));
+
+        // Then: 各停车场剩余空位与逐辆停车一致
+        assertEquals(9, tickets.size());
+        assertEquals(referenceLots.get(0).getAvailableCount(), lot1.getAvailableCount());
+        assertEquals(referenceLots.get(1).getAvailableCount(), lot2.getAvailableCount());
+        assertEquals(referenceLots.get(2).getAvailableCount(), lot3.getAvailableCount());
+    }
+}